@@ -42,7 +42,7 @@ public final class BukkitCommandExecutor implements TabExecutor {
                                                           @NotNull String[] args) {
         try {
             BukkitCommandActor actor = new BukkitActor(sender, handler);
-            ArgumentStack arguments = handler.parseArgumentsForCompletion(args);
+            ArgumentStack arguments = handler.parseArgumentsForCompletion(actor, args);
 
             arguments.addFirst(command.getName());
             return handler.getAutoCompleter().complete(actor, arguments);
@@ -19,6 +19,7 @@ import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import revxrsal.commands.CommandHandler;
+import revxrsal.commands.annotation.Usage;
 import revxrsal.commands.autocomplete.SuggestionProvider;
 import revxrsal.commands.bukkit.BukkitBrigadier;
 import revxrsal.commands.bukkit.BukkitCommandActor;
@@ -33,6 +34,7 @@ import revxrsal.commands.command.ExecutableCommand;
 import revxrsal.commands.core.BaseCommandHandler;
 import revxrsal.commands.core.CommandPath;
 import revxrsal.commands.exception.EnumNotFoundException;
+import revxrsal.commands.process.ValueResolver;
 import revxrsal.commands.util.Primitives;
 
 import java.lang.reflect.Constructor;
@@ -69,8 +71,14 @@ public final class BukkitHandler extends BaseCommandHandler implements BukkitCom
         } catch (NoClassDefFoundError e) {
             brigadier = Optional.empty();
         }
+        setMainThreadExecutor(task -> {
+            if (Bukkit.isPrimaryThread())
+                task.run();
+            else
+                Bukkit.getScheduler().runTask(plugin, task);
+        });
         registerSenderResolver(BukkitSenderResolver.INSTANCE);
-        registerValueResolver(Player.class, context -> {
+        registerValueResolver(Player.class, ValueResolver.onMainThread(context -> {
             String value = context.pop();
             if (value.equalsIgnoreCase("self") || value.equalsIgnoreCase("me"))
                 return ((BukkitCommandActor) context.actor()).requirePlayer();
@@ -95,7 +103,7 @@ public final class BukkitHandler extends BaseCommandHandler implements BukkitCom
             if (player == null)
                 throw new InvalidPlayerException(context.parameter(), value);
             return player;
-        });
+        }));
         registerValueResolver(OfflinePlayer.class, context -> {
             String value = context.pop();
             if (value.equalsIgnoreCase("self") || value.equalsIgnoreCase("me"))
@@ -143,13 +151,13 @@ public final class BukkitHandler extends BaseCommandHandler implements BukkitCom
         Bukkit.getServer().getPluginManager().registerEvents(new BukkitCommandListeners(this), plugin);
     }
 
-    @Override public @NotNull CommandHandler register(@NotNull Object... commands) {
-        super.register(commands);
-        for (ExecutableCommand command : executables.values()) {
+    @Override public @NotNull CommandHandler freeze() {
+        super.freeze();
+        for (ExecutableCommand command : getCommands().values()) {
             if (command.getParent() != null) continue;
-            createPluginCommand(command.getName(), command.getDescription(), command.getUsage());
+            createPluginCommand(command.getName(), command.getDescription(), getRegisteredUsage(command));
         }
-        for (CommandCategory category : categories.values()) {
+        for (CommandCategory category : getCategories().values()) {
             if (category.getParent() != null) continue;
             createPluginCommand(category.getName(), null, null);
         }
@@ -189,6 +197,18 @@ public final class BukkitHandler extends BaseCommandHandler implements BukkitCom
         return plugin;
     }
 
+    /**
+     * Returns the usage that is registered to Bukkit for the given command. Lazily
+     * built commands are not built for it, and only register their {@link Usage}
+     * if they have one, keeping the default usage of Bukkit otherwise.
+     */
+    private @Nullable String getRegisteredUsage(@NotNull ExecutableCommand command) {
+        if (isBuilt(command))
+            return command.getUsage();
+        Usage usage = command.getAnnotation(Usage.class);
+        return usage == null ? null : usage.value();
+    }
+
     private @SneakyThrows void createPluginCommand(String name, @Nullable String description, @Nullable String usage) {
         PluginCommand cmd = COMMAND_CONSTRUCTOR.newInstance(name, plugin);
         COMMAND_MAP.register(plugin.getName(), cmd);
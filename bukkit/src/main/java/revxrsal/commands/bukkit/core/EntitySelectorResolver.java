@@ -66,9 +66,9 @@ public enum EntitySelectorResolver implements ValueResolverFactory {
         if (EntitySelector.class.isAssignableFrom(parameter.getType())) {
             Class<?> entityType = (Class<?>) Primitives.getInsideGeneric(parameter.getFullType(), Entity.class);
             if (Player.class.isAssignableFrom(entityType)) {
-                return this::resolvePlayerSelector;
+                return ValueResolver.onMainThread(this::resolvePlayerSelector);
             }
-            return context -> {
+            return ValueResolver.onMainThread(context -> {
                 String selector = context.pop();
                 try {
                     BukkitCommandActor actor = context.actor();
@@ -80,7 +80,7 @@ public enum EntitySelectorResolver implements ValueResolverFactory {
                 } catch (NoSuchMethodError e) {
                     throw new CommandErrorException("Entity selectors on legacy versions are not supported yet!");
                 }
-            };
+            });
         }
         return null;
     }
@@ -32,10 +32,10 @@ final class BungeeCommand extends Command implements TabExecutor {
 
     @Override public Iterable<String> onTabComplete(CommandSender sender, String[] args) {
        try {
-            ArgumentStack arguments = handler.parseArgumentsForCompletion(args);
+            BungeeCommandActor actor = new BungeeActor(sender, handler);
+            ArgumentStack arguments = handler.parseArgumentsForCompletion(actor, args);
             arguments.addFirst(getName());
 
-            BungeeCommandActor actor = new BungeeActor(sender, handler);
             return handler.getAutoCompleter().complete(actor, arguments);
        } catch (ArgumentParseException e) {
            return Collections.emptyList();
@@ -59,13 +59,13 @@ public final class BungeeHandler extends BaseCommandHandler implements BungeeCom
         setExceptionHandler(BungeeExceptionAdapter.INSTANCE);
     }
 
-    @Override public @NotNull CommandHandler register(@NotNull Object... commands) {
-        super.register(commands);
-        for (ExecutableCommand command : executables.values()) {
+    @Override public @NotNull CommandHandler freeze() {
+        super.freeze();
+        for (ExecutableCommand command : getCommands().values()) {
             if (command.getParent() != null) continue;
             createPluginCommand(command.getName());
         }
-        for (CommandCategory category : categories.values()) {
+        for (CommandCategory category : getCategories().values()) {
             if (category.getParent() != null) continue;
             createPluginCommand(category.getName());
         }
@@ -2,7 +2,10 @@ package revxrsal.commands;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
 import org.jetbrains.annotations.UnmodifiableView;
+import revxrsal.commands.annotation.Async;
+import revxrsal.commands.annotation.CacheResult;
 import revxrsal.commands.annotation.Dependency;
 import revxrsal.commands.annotation.Flag;
 import revxrsal.commands.annotation.Switch;
@@ -10,7 +13,9 @@ import revxrsal.commands.annotation.dynamic.AnnotationReplacer;
 import revxrsal.commands.annotation.dynamic.Annotations;
 import revxrsal.commands.autocomplete.AutoCompleter;
 import revxrsal.commands.command.*;
+import revxrsal.commands.core.CommandBatch;
 import revxrsal.commands.core.CommandPath;
+import revxrsal.commands.core.ResultCache;
 import revxrsal.commands.core.reflect.MethodCallerFactory;
 import revxrsal.commands.exception.ArgumentParseException;
 import revxrsal.commands.exception.CommandExceptionHandler;
@@ -18,13 +23,17 @@ import revxrsal.commands.exception.TooManyArgumentsException;
 import revxrsal.commands.help.CommandHelp;
 import revxrsal.commands.help.CommandHelpWriter;
 import revxrsal.commands.locales.Translator;
+import revxrsal.commands.metrics.CommandMetrics;
 import revxrsal.commands.process.*;
 
 import java.lang.annotation.Annotation;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
@@ -43,6 +52,36 @@ public interface CommandHandler {
      */
     @NotNull CommandHandler register(@NotNull Object... commands);
 
+    /**
+     * Registers the specified commands, without publishing them. This will automatically
+     * set all {@link Dependency}-annotated fields with their values.
+     * <p>
+     * Registering commands links them to their categories and resolves their permissions,
+     * which goes over every registered command. When registering many commands in separate
+     * calls, this allows doing that only once, by calling {@link #freeze()} after all
+     * the commands are registered. Commands registered by this method are not dispatched
+     * nor suggested until then.
+     * <p>
+     * If the path of any of the commands is already taken, this fails before
+     * registering any of them.
+     *
+     * @param commands The commands object instances. Can be classes if methods are static.
+     * @return This command handler
+     * @see #freeze()
+     */
+    @NotNull CommandHandler registerAll(@NotNull Iterable<?> commands);
+
+    /**
+     * Links the commands registered by {@link #registerAll(Iterable)} to their
+     * categories, resolves their permissions, and publishes them so that they can
+     * be dispatched and suggested.
+     * <p>
+     * {@link #register(Object...)} calls this automatically.
+     *
+     * @return This command handler
+     */
+    @NotNull CommandHandler freeze();
+
     /**
      * Gets the current, default locale used by this handler
      *
@@ -97,6 +136,19 @@ public interface CommandHandler {
      */
     ArgumentStack parseArgumentsForCompletion(String... arguments) throws ArgumentParseException;
 
+    /**
+     * Parses the arguments of a tab completion requested by the given actor. This
+     * behaves exactly like {@link #parseArgumentsForCompletion(String...)}, however,
+     * the tokens of the actor's last completion are remembered, so that when the new
+     * input extends the previous one, only the last token onwards is tokenized again.
+     *
+     * @param actor     The actor requesting the completion
+     * @param arguments Strings to parse. These will get joined
+     *                  to a string separated by spaces.
+     * @return The argument stack.
+     */
+    ArgumentStack parseArgumentsForCompletion(@NotNull CommandActor actor, String... arguments) throws ArgumentParseException;
+
     /**
      * Parses the string array and returns an {@link ArgumentStack} for it.
      *
@@ -203,6 +255,104 @@ public interface CommandHandler {
      */
     @NotNull CommandHandler failOnTooManyArguments();
 
+    /**
+     * Makes commands reuse a single, per-thread resolver context for all the
+     * parameters of an invocation, instead of creating a new context for
+     * every parameter.
+     * <p>
+     * This removes the per-invocation allocations of resolving parameters, however,
+     * resolvers must not hold on to the {@link ParameterResolver.ParameterResolverContext}
+     * they receive (or its {@link ParameterResolver.ParameterResolverContext#input() input})
+     * after they return, as it will be reused by the next parameter or invocation.
+     *
+     * @return This command handler
+     */
+    @NotNull CommandHandler reuseResolverContexts();
+
+    /**
+     * Makes the argument stacks created by this handler backed by an array with
+     * a cursor over its head, rather than by a linked list. Popping arguments
+     * only advances the cursor, and {@link ArgumentStack#copy() copies} share the
+     * array until either of them is modified.
+     * <p>
+     * With the built-in {@link ArgumentParser#QUOTES} parser, arguments are also
+     * kept as slices of the input until they are accessed (see
+     * {@link ArgumentParser#SLICED_QUOTES}), and parameters that
+     * {@link CommandParameter#consumesAllString() consume all the string} receive
+     * the rest of the input exactly as it was written, including its spacing and
+     * quotes. Custom argument parsers still decide the stacks they create.
+     *
+     * @return This command handler
+     * @see revxrsal.commands.core.ArrayArgumentStack
+     */
+    @NotNull CommandHandler useArrayArgumentStacks();
+
+    /**
+     * Makes commands that are registered afterwards build lazily. Registering them
+     * only reads their paths, permissions and methods, and the rest of every command
+     * (its parameters, their resolvers and suggestion providers, its method caller,
+     * response handler and usage) is built once, on the first time it is dispatched,
+     * auto-completed or otherwise asked for its parameters or usage.
+     * <p>
+     * This makes registering many commands faster, at the cost of reporting invalid
+     * parameters (such as ones without a resolver) on the first use of their commands
+     * rather than on registration. Note that platforms that build a tree of all commands
+     * when they are registered, such as Brigadier, build all of them anyway.
+     *
+     * @return This command handler
+     */
+    @NotNull CommandHandler lazilyBuildCommands();
+
+    /**
+     * Makes registering many commands at once read and build them in parallel,
+     * on the common fork-join pool.
+     * <p>
+     * Only enable this if the resolver factories, suggestion provider factories,
+     * annotation replacers, permission readers and the method caller factory of this
+     * handler are all thread-safe, as they will be called concurrently while
+     * registering commands.
+     *
+     * @return This command handler
+     */
+    @NotNull CommandHandler parseCommandsInParallel();
+
+    /**
+     * Sets the executor that {@link Async} commands, and commands dispatched
+     * with {@link #dispatchAsync(CommandActor, String)}, are resolved and
+     * invoked on.
+     * <p>
+     * By default, this is {@link java.util.concurrent.ForkJoinPool#commonPool()}. Commands
+     * that block for long should use a dedicated executor instead.
+     *
+     * @param executor The new executor
+     * @return This command handler
+     */
+    @NotNull CommandHandler setAsyncExecutor(@NotNull Executor executor);
+
+    /**
+     * Returns the executor that {@link Async} commands are resolved and
+     * invoked on.
+     *
+     * @return The async executor
+     * @see #setAsyncExecutor(Executor)
+     */
+    @NotNull Executor getAsyncExecutor();
+
+    /**
+     * Sets the executor that {@link MainThreadResolver}s are invoked on.
+     * <p>
+     * The executor must run tasks directly if it is already called from the
+     * main thread, as the invocation waits for the resolver to finish. Invocations
+     * fail if the executor does not run the resolver within 30 seconds.
+     * <p>
+     * By default, this runs tasks directly on the calling thread. Platforms
+     * that have a main thread will set this accordingly.
+     *
+     * @param executor The new executor
+     * @return This command handler
+     */
+    @NotNull CommandHandler setMainThreadExecutor(@NotNull Executor executor);
+
     /**
      * Registers the given sender resolver, which resolves parameters at index 0
      * that may be potentially a custom sender implementation.
@@ -476,6 +626,32 @@ public interface CommandHandler {
      */
     @NotNull @UnmodifiableView Map<CommandPath, CommandCategory> getCategories();
 
+    /**
+     * Returns the metrics registry of this command handler, which records
+     * invocations, errors and latencies of every command once enabled.
+     *
+     * @return The metrics registry
+     * @see CommandMetrics#enable()
+     */
+    @NotNull CommandMetrics getMetrics();
+
+    /**
+     * Returns the result cache of the given command. This will return null
+     * if the command is not annotated with {@link CacheResult}.
+     *
+     * @param command Command to get the cache for
+     * @return The result cache of the command
+     */
+    @Nullable ResultCache getResultCache(@NotNull ExecutableCommand command);
+
+    /**
+     * Removes all the cached results of all the commands
+     *
+     * @return This command handler
+     * @see CacheResult
+     */
+    @NotNull CommandHandler invalidateCachedResults();
+
     /**
      * Returns the command exception handler currently used by this command handler
      *
@@ -598,4 +774,60 @@ public interface CommandHandler {
      */
     <T> @NotNull Optional<@Nullable T> dispatch(@NotNull CommandActor actor, @NotNull String commandInput);
 
+    /**
+     * Evaluates the command from the given arguments on the {@link #getAsyncExecutor() async executor}.
+     * <p>
+     * Exceptions are handled by the {@link #getExceptionHandler() exception handler}, and
+     * the returned stage completes with an empty optional.
+     *
+     * @param actor     Actor to execute as
+     * @param arguments Arguments to invoke the command with
+     * @return A stage that completes with the result returned from invoking the command method
+     */
+    <T> @NotNull CompletionStage<Optional<@Nullable T>> dispatchAsync(@NotNull CommandActor actor, @NotNull ArgumentStack arguments);
+
+    /**
+     * Parses and evaluates the command from the given input on the {@link #getAsyncExecutor() async executor}.
+     * <p>
+     * Exceptions are handled by the {@link #getExceptionHandler() exception handler}, and
+     * the returned stage completes with an empty optional.
+     *
+     * @param actor        Actor to execute as
+     * @param commandInput Input to invoke with
+     * @return A stage that completes with the result returned from invoking the command method
+     */
+    <T> @NotNull CompletionStage<Optional<@Nullable T>> dispatchAsync(@NotNull CommandActor actor, @NotNull String commandInput);
+
+    /**
+     * Dispatches all the entries of the given batch on the calling thread, in the
+     * order they were added.
+     * <p>
+     * {@link Async} commands are dispatched on the calling thread as well, so that
+     * their results can be reported. Use {@link #dispatchBatch(CommandBatch, Executor)}
+     * to dispatch the batch off the calling thread.
+     * <p>
+     * A failing entry does not stop the rest of the batch. Exceptions are handled by
+     * the {@link #getExceptionHandler() exception handler}, and are also reported in
+     * the entry's result.
+     *
+     * @param batch The batch to dispatch
+     * @return The results of the entries, in the same order
+     */
+    @NotNull @Unmodifiable List<CommandBatch.Result> dispatchBatch(@NotNull CommandBatch batch);
+
+    /**
+     * Dispatches all the entries of the given batch on the given executor.
+     * <p>
+     * Entries of different actors are dispatched in parallel, while entries of the
+     * same actor are dispatched in the order they were added. {@link Async} commands
+     * are dispatched on the given executor as well, rather than on the
+     * {@link #getAsyncExecutor() async executor}.
+     *
+     * @param batch    The batch to dispatch
+     * @param executor The executor to dispatch on
+     * @return A stage that completes with the results of the entries, in the same order
+     * @see #dispatchBatch(CommandBatch)
+     */
+    @NotNull CompletionStage<@Unmodifiable List<CommandBatch.Result>> dispatchBatch(@NotNull CommandBatch batch, @NotNull Executor executor);
+
 }
@@ -0,0 +1,28 @@
+package revxrsal.commands.annotation;
+
+import revxrsal.commands.CommandHandler;
+import revxrsal.commands.command.ExecutableCommand;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a command as asynchronous. The command is still looked up on the
+ * thread that dispatches it, however, its conditions, parameter resolution and
+ * invocation are all moved to the {@link CommandHandler#getAsyncExecutor() async executor}
+ * of the command handler.
+ * <p>
+ * This is useful for commands that block, such as commands that query a database,
+ * so that they do not hold up the thread they are dispatched from.
+ * <p>
+ * Resolvers that must run on the platform's main thread can opt back onto it, see
+ * {@link revxrsal.commands.process.MainThreadResolver}.
+ * <p>
+ * Accessible with {@link ExecutableCommand#isAsync()}
+ */
+@DistributeOnMethods
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Async {}
@@ -0,0 +1,77 @@
+package revxrsal.commands.annotation;
+
+import revxrsal.commands.CommandHandler;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the result of the command for the given time, so that invoking it
+ * again with the same arguments hands the cached result to the response handler,
+ * rather than invoking the command method again.
+ * <p>
+ * This should only be used on commands that do not have any side effects, such
+ * as read-only lookups. Results are keyed on the values of the command parameters,
+ * as well as the actor if the {@link #scope()} is {@link Scope#ACTOR}. Commands that
+ * have parameters resolved from the context, such as the sender, are always cached
+ * for each actor separately, as these parameters may differ between actors. Commands
+ * that throw an exception are never cached.
+ * <p>
+ * Cached results can be invalidated with {@link CommandHandler#invalidateCachedResults()}
+ * and {@link CommandHandler#getResultCache(revxrsal.commands.command.ExecutableCommand)}.
+ */
+@DistributeOnMethods
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface CacheResult {
+
+    /**
+     * The time a result stays cached for
+     *
+     * @return The time to live
+     */
+    long ttl();
+
+    /**
+     * The time unit of {@link #ttl()}
+     *
+     * @return The time unit
+     */
+    TimeUnit unit() default TimeUnit.SECONDS;
+
+    /**
+     * Whether are results shared between all actors or cached for
+     * each actor separately. Commands with context parameters are
+     * always cached for each actor.
+     *
+     * @return The cache scope
+     */
+    Scope scope() default Scope.GLOBAL;
+
+    /**
+     * The maximum amount of results to keep. Once exceeded, the least
+     * recently used results get evicted.
+     *
+     * @return The maximum size
+     */
+    int maxSize() default 256;
+
+    /**
+     * Represents whom a cached result is shared with
+     */
+    enum Scope {
+
+        /**
+         * Results are cached for each actor separately
+         */
+        ACTOR,
+
+        /**
+         * Results are shared between all actors
+         */
+        GLOBAL
+    }
+}
@@ -31,16 +31,26 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.function.Supplier;
 
 /**
  * A utility for constructing annotations dynamically.
  * <p>
+ * Annotations are backed by arrays of their member values, laid out by
+ * their annotation type, which are only read once per annotation type.
+ * Annotations that do not have {@link Supplier} values also compute their
+ * hash codes and string representations once.
+ * <p>
  * Re-adapted from Guice.
  */
 public final class Annotations {
 
+    private static final ClassValue<AnnotationType> TYPES = new ClassValue<AnnotationType>() {
+        @Override protected AnnotationType computeValue(Class<?> type) {
+            return new AnnotationType(type);
+        }
+    };
+
     /**
      * Creates a new annotation with no values. Any default values will
      * automatically be used.
@@ -69,11 +79,10 @@ public final class Annotations {
                                                            @NotNull Map<String, Object> members) {
         Preconditions.notNull(type, "type");
         Preconditions.notNull(members, "members");
-        return type.cast(Proxy.newProxyInstance(
-                type.getClassLoader(),
-                new Class<?>[]{type},
-                new DynamicAnnotationHandler(type, members)
-        ));
+        AnnotationType annotationType = TYPES.get(type);
+        Object[] values = annotationType.defaults.clone();
+        members.forEach((name, value) -> annotationType.set(values, name, value));
+        return annotationType.create(type, values);
     }
 
     /**
@@ -93,110 +102,166 @@ public final class Annotations {
         Preconditions.notNull(members, "members");
         if (members.length % 2 != 0)
             throw new IllegalArgumentException("Cannot have a non-even amount of members! Found " + members.length);
-        Map<String, Object> values = new HashMap<>();
+        AnnotationType annotationType = TYPES.get(type);
+        Object[] values = annotationType.defaults.clone();
         for (int i = 0; i < members.length; i += 2) {
-            String key = String.valueOf(members[i]);
-            Object value = members[i + 1];
-            values.put(key, value);
+            annotationType.set(values, String.valueOf(members[i]), members[i + 1]);
         }
-        return type.cast(Proxy.newProxyInstance(
-                type.getClassLoader(),
-                new Class<?>[]{type},
-                new DynamicAnnotationHandler(type, values)
-        ));
+        return annotationType.create(type, values);
     }
 
-    /**
-     * Implementation of {@link Annotation#hashCode()}.
-     *
-     * @param type    The annotation type
-     * @param members The annotation members
-     * @return The annotation's hashcode.
-     */
-    private static int hashCode(Class<? extends Annotation> type, Map<String, Object> members) {
-        int result = 0;
-        for (Method method : type.getDeclaredMethods()) {
-            String name = method.getName();
-            Object value = members.get(name);
-            result += (127 * name.hashCode()) ^ (Arrays.deepHashCode(new Object[]{value}) - 31);
-        }
-        return result;
+    private static Object resolve(Object value) {
+        return value instanceof Supplier ? ((Supplier<?>) value).get() : value;
+    }
+
+    private static String deepToString(Object arg) {
+        String s = Arrays.deepToString(new Object[]{arg});
+        return s.substring(1, s.length() - 1); // cut off the []
     }
 
     /**
-     * Implementation of {@link Annotation#equals(Object)}.
-     *
-     * @param type    The annotation type
-     * @param members The annotation members
-     * @param other   The other annotation to compare
-     * @return if they are equal
+     * The members of an annotation type, which are read once per type
      */
-    private static boolean equals(Class<? extends Annotation> type, Map<String, Object> members, Object other) throws Exception {
-        if (!type.isInstance(other)) {
-            return false;
-        }
-        for (Method method : type.getDeclaredMethods()) {
-            String name = method.getName();
-            if (!Arrays.deepEquals(new Object[]{method.invoke(other)}, new Object[]{members.get(name)})) {
-                return false;
+    private static final class AnnotationType {
+
+        private final Class<?> type;
+        private final Method[] members;
+        private final Map<String, Integer> indices = new HashMap<>();
+
+        /**
+         * The default value of every member, or null if it has none.
+         */
+        private final Object[] defaults;
+
+        AnnotationType(Class<?> type) {
+            this.type = type;
+            members = type.getDeclaredMethods();
+            defaults = new Object[members.length];
+            for (int i = 0; i < members.length; i++) {
+                indices.put(members[i].getName(), i);
+                defaults[i] = members[i].getDefaultValue();
+                try { // for comparing with annotations of non-public types
+                    members[i].setAccessible(true);
+                } catch (RuntimeException ignored) {
+                }
             }
         }
-        return true;
-    }
 
-    /**
-     * Implementation of {@link Annotation#toString()}.
-     *
-     * @param type    The annotation type
-     * @param members The annotation members
-     * @return The annotation's hashcode.
-     */
-    private static String toString(Class<? extends Annotation> type, Map<String, Object> members) {
-        StringBuilder sb = new StringBuilder().append("@").append(type.getName()).append("(");
-        StringJoiner joiner = new StringJoiner(", ");
-        for (Entry<String, Object> entry : members.entrySet()) {
-            joiner.add(entry.getKey() + "=" + deepToString(entry.getValue()));
+        void set(Object[] values, String name, Object value) {
+            Integer index = indices.get(name);
+            if (index != null && value != null) // unknown members are never read
+                values[index] = value;
         }
-        sb.append(joiner);
-        return sb.append(")").toString();
-    }
 
-    private static String deepToString(Object arg) {
-        String s = Arrays.deepToString(new Object[]{arg});
-        return s.substring(1, s.length() - 1); // cut off the []
+        <T extends Annotation> T create(Class<T> type, Object[] values) {
+            return type.cast(Proxy.newProxyInstance(
+                    type.getClassLoader(),
+                    new Class<?>[]{type},
+                    new DynamicAnnotation(this, values)
+            ));
+        }
     }
 
-    private static class DynamicAnnotationHandler implements InvocationHandler {
+    private static final class DynamicAnnotation implements InvocationHandler {
+
+        private final AnnotationType type;
+        private final Object[] values;
+
+        /**
+         * Whether do any values come from {@link Supplier}s, in which case
+         * the hash code and the string representation are not cached.
+         */
+        private final boolean supplied;
+        private final int hashCode;
+        private String toString;
+
+        DynamicAnnotation(AnnotationType type, Object[] values) {
+            this.type = type;
+            this.values = values;
+            boolean supplied = false;
+            for (Object value : values)
+                supplied |= value instanceof Supplier;
+            this.supplied = supplied;
+            hashCode = supplied ? 0 : computeHashCode();
+        }
+
+        private Object value(int index) {
+            return resolve(values[index]);
+        }
+
+        /**
+         * Implementation of {@link Annotation#hashCode()}.
+         */
+        private int computeHashCode() {
+            int result = 0;
+            for (int i = 0; i < values.length; i++) {
+                String name = type.members[i].getName();
+                result += (127 * name.hashCode()) ^ (Arrays.deepHashCode(new Object[]{value(i)}) - 31);
+            }
+            return result;
+        }
 
-        private final Class<? extends Annotation> annotationType;
-        private final Map<String, Object> annotationMembers;
+        /**
+         * Implementation of {@link Annotation#equals(Object)}.
+         */
+        private boolean equalTo(Object other) throws Exception {
+            if (!type.type.isInstance(other)) {
+                return false;
+            }
+            DynamicAnnotation dynamic = null;
+            if (Proxy.isProxyClass(other.getClass())) {
+                InvocationHandler handler = Proxy.getInvocationHandler(other);
+                if (handler instanceof DynamicAnnotation && ((DynamicAnnotation) handler).type == type)
+                    dynamic = (DynamicAnnotation) handler;
+            }
+            if (dynamic == this) return true;
+            if (dynamic != null && !supplied && !dynamic.supplied && hashCode != dynamic.hashCode) return false;
+            for (int i = 0; i < values.length; i++) {
+                Object otherValue = dynamic != null ? dynamic.value(i) : type.members[i].invoke(other);
+                if (!Arrays.deepEquals(new Object[]{otherValue}, new Object[]{value(i)})) {
+                    return false;
+                }
+            }
+            return true;
+        }
 
-        DynamicAnnotationHandler(Class<? extends Annotation> annotationType, Map<String, Object> annotationMembers) {
-            this.annotationType = annotationType;
-            this.annotationMembers = new HashMap<>(annotationMembers);
-            for (Method method : annotationType.getDeclaredMethods()) {
-                this.annotationMembers.putIfAbsent(method.getName(), method.getDefaultValue());
+        /**
+         * Implementation of {@link Annotation#toString()}.
+         */
+        private String computeToString() {
+            StringBuilder sb = new StringBuilder().append("@").append(type.type.getName()).append("(");
+            StringJoiner joiner = new StringJoiner(", ");
+            for (int i = 0; i < values.length; i++) {
+                joiner.add(type.members[i].getName() + "=" + deepToString(value(i)));
             }
+            sb.append(joiner);
+            return sb.append(")").toString();
         }
 
         @Override public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (args == null) {
+                Integer index = type.indices.get(method.getName());
+                if (index != null) {
+                    Object v = values[index];
+                    if (v == null)
+                        throw new AbstractMethodError(method.getName());
+                    return resolve(v);
+                }
+            }
             switch (method.getName()) {
                 case "toString":
-                    return Annotations.toString(annotationType, annotationMembers);
+                    if (supplied) return computeToString();
+                    if (toString == null) toString = computeToString();
+                    return toString;
                 case "hashCode":
-                    return Annotations.hashCode(annotationType, annotationMembers);
+                    return supplied ? computeHashCode() : hashCode;
                 case "equals":
-                    return Annotations.equals(annotationType, annotationMembers, args[0]);
+                    return equalTo(args[0]);
                 case "annotationType":
-                    return annotationType;
-                default: {
-                    Object v = annotationMembers.get(method.getName());
-                    if (v == null)
-                        throw new AbstractMethodError(method.getName());
-                    return v instanceof Supplier ? ((Supplier<?>) v).get() : v;
-                }
+                    return type.type;
+                default:
+                    throw new AbstractMethodError(method.getName());
             }
         }
     }
 }
-
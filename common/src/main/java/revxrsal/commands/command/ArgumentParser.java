@@ -53,6 +53,16 @@ public interface ArgumentParser {
      */
     ArgumentParser NO_QUOTES = arguments -> ArgumentStack.copy(Strings.SPACE.split(arguments));
 
+    /**
+     * An argument parser that follows the same rules as {@link #QUOTES}, however,
+     * it does not copy every argument into a separate string. Arguments are kept
+     * as slices of the input, and are only copied when they are accessed.
+     * <p>
+     * This is cheaper for inputs where most arguments are only compared, or are
+     * never reached, such as flags and switches.
+     */
+    ArgumentParser SLICED_QUOTES = QuotedStringTokenizer.SLICING;
+
     /**
      * Parses the string and returns an {@link ArgumentStack} for it.
      *
@@ -65,4 +75,21 @@ public interface ArgumentParser {
      */
     ArgumentStack parse(@NotNull String arguments) throws ArgumentParseException;
 
+    /**
+     * Parses arguments that have already been split by spaces, such as the
+     * ones that platforms pass to their commands.
+     * <p>
+     * By default, this joins the arguments back and {@link #parse(String) parses}
+     * them. Parsers may override this to avoid tokenizing the arguments again.
+     *
+     * @param arguments The split arguments. These are guaranteed never to join into
+     *                  an empty string.
+     * @return The argument stack
+     * @throws ArgumentParseException An exception to throw in case of errors while parsing
+     *                                the arguments.
+     */
+    default ArgumentStack parse(@NotNull String[] arguments) throws ArgumentParseException {
+        return parse(String.join(" ", arguments));
+    }
+
 }
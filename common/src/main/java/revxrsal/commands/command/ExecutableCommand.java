@@ -5,6 +5,7 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Range;
 import org.jetbrains.annotations.Unmodifiable;
 import revxrsal.commands.CommandHandler;
+import revxrsal.commands.annotation.Async;
 import revxrsal.commands.annotation.Description;
 import revxrsal.commands.annotation.SecretCommand;
 import revxrsal.commands.annotation.Usage;
@@ -124,4 +125,16 @@ public interface ExecutableCommand extends CommandAnnotationHolder, PermissionHo
      */
     boolean isSecret();
 
+    /**
+     * Returns whether is this command resolved and invoked on the
+     * async executor of the command handler
+     * <p>
+     * Specified by {@link Async}.
+     *
+     * @return is async or not.
+     */
+    default boolean isAsync() {
+        return hasAnnotation(Async.class);
+    }
+
 }
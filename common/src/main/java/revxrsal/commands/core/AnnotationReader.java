@@ -28,15 +28,12 @@ import lombok.ToString;
 import org.jetbrains.annotations.NotNull;
 import revxrsal.commands.annotation.Command;
 import revxrsal.commands.annotation.Default;
-import revxrsal.commands.annotation.DistributeOnMethods;
 import revxrsal.commands.annotation.Subcommand;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -58,53 +55,61 @@ import java.util.stream.Stream;
     }
 
     private final AnnotatedElement element;
-    private Map<Class<? extends Annotation>, Annotation> annotations;
+    private AnnotationTable annotations;
 
     public <T extends Annotation> T get(@NotNull Class<T> annotationType) {
-        return (T) annotations.get(annotationType);
+        return annotations.get(annotationType);
     }
 
-    public void add(@NotNull Annotation annotation) {
-        annotations.putIfAbsent(annotation.annotationType(), annotation);
+    /**
+     * Adds the given annotation if there is no annotation of its type, replacing
+     * it with the handler's annotation replacers.
+     */
+    public void add(@NotNull BaseCommandHandler handler, @NotNull Annotation annotation) {
+        if (annotations.contains(annotation.annotationType())) return;
+        annotations = annotations.with(annotation);
+        if (!handler.annotationReplacers.isEmpty())
+            annotations = withReplacements(handler, annotations, annotation);
     }
 
-    void replaceAnnotations(BaseCommandHandler handler) {
+    private void replaceAnnotations(BaseCommandHandler handler) {
         if (handler.annotationReplacers.isEmpty()) return;
-        Map<Class<? extends Annotation>, Annotation> newAnnotations = new HashMap<>(annotations);
-        for (Annotation annotation : annotations.values()) {
-            List<Annotation> replaced = handler.replaceAnnotation(element, annotation);
-            if (replaced == null) continue;
-            replaced.forEach(a -> newAnnotations.put(a.annotationType(), a));
-        }
-        // we copy the replaced ones into a new map to avoid stackoverflow
-        annotations = newAnnotations;
+        // we add the replaced ones to a new table, so that they are not replaced again
+        AnnotationTable replaced = annotations;
+        for (int i = 0; i < annotations.size(); i++)
+            replaced = withReplacements(handler, replaced, annotations.get(i));
+        annotations = replaced;
+    }
+
+    private AnnotationTable withReplacements(BaseCommandHandler handler, AnnotationTable table, Annotation annotation) {
+        List<Annotation> replaced = handler.replaceAnnotation(element, annotation);
+        if (replaced == null) return table;
+        for (Annotation a : replaced)
+            table = table.with(a);
+        return table;
     }
 
     public boolean shouldDismiss() {
         if (!(element instanceof Method)) return false;
         if (annotations.isEmpty()) return true;
-        return COMMAND_ANNOTATIONS.stream().noneMatch(annotation -> annotations.containsKey(annotation));
+        return COMMAND_ANNOTATIONS.stream().noneMatch(annotation -> annotations.contains(annotation));
     }
 
     @NotNull private static AnnotationReader createReader(@NotNull BaseCommandHandler handler, @NotNull AnnotatedElement method) {
-        Map<Class<? extends Annotation>, Annotation> annotations = toMap(method.getAnnotations());
-
-        AnnotationReader reader = new AnnotationReader(method, annotations);
+        AnnotationReader reader = new AnnotationReader(method, AnnotationTable.of(method));
         reader.replaceAnnotations(handler);
         return reader;
     }
 
-    public void distributeAnnotations() {
-        if (element instanceof Method) {
-            Class<?> top = ((Method) element).getDeclaringClass();
-            while (top != null) {
-                toMap(top.getAnnotations()).forEach((type, annotation) -> {
-                    if (type.isAnnotationPresent(DistributeOnMethods.class))
-                        annotations.putIfAbsent(type, annotation);
-                });
-                top = top.getDeclaringClass();
-            }
-        }
+    /**
+     * Adds the class-level annotations that are distributed on methods, replacing
+     * them with the handler's annotation replacers.
+     */
+    public void distributeAnnotations(BaseCommandHandler handler) {
+        if (!(element instanceof Method)) return;
+        AnnotationTable distributed = AnnotationTable.distributedOn(((Method) element).getDeclaringClass());
+        for (int i = 0; i < distributed.size(); i++)
+            add(handler, distributed.get(i));
     }
 
     public <R, T extends Annotation> R get(@NotNull Class<T> type, Function<T, R> f) {
@@ -112,7 +117,7 @@ import java.util.stream.Stream;
     }
 
     public <R, T extends Annotation> R get(@NotNull Class<T> type, Function<T, R> f, Supplier<R> def) {
-        T ann = (T) annotations.get(type);
+        T ann = annotations.get(type);
         if (ann != null)
             return f.apply(ann);
         return def.get();
@@ -126,15 +131,7 @@ import java.util.stream.Stream;
     }
 
     public boolean contains(Class<? extends Annotation> annotation) {
-        return annotations.containsKey(annotation);
-    }
-
-    private static Map<Class<? extends Annotation>, Annotation> toMap(Annotation[] annotations) {
-        Map<Class<? extends Annotation>, Annotation> map = new HashMap<>();
-        for (Annotation annotation : annotations) {
-            map.put(annotation.annotationType(), annotation);
-        }
-        return map;
+        return annotations.contains(annotation);
     }
 
     public boolean isEmpty() {
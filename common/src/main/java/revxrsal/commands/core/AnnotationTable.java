@@ -0,0 +1,165 @@
+package revxrsal.commands.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.commands.annotation.DistributeOnMethods;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable table of the annotations of an element, indexed by their types.
+ * <p>
+ * The tables of classes, and of the methods and parameters they declare, are cached
+ * per class and shared by all command handlers, so every element is only read once.
+ * The class-level annotations that are {@link DistributeOnMethods distributed on methods}
+ * are also collected once per class.
+ */
+final class AnnotationTable {
+
+    static final AnnotationTable EMPTY = new AnnotationTable(new Annotation[0]);
+
+    private static final ClassValue<ClassAnnotations> CLASSES = new ClassValue<ClassAnnotations>() {
+        @Override protected ClassAnnotations computeValue(Class<?> type) {
+            return new ClassAnnotations(type);
+        }
+    };
+
+    private final Class<?>[] types;
+    private final Annotation[] annotations;
+
+    private AnnotationTable(Annotation[] annotations) {
+        this.annotations = annotations;
+        types = new Class<?>[annotations.length];
+        for (int i = 0; i < annotations.length; i++)
+            types[i] = annotations[i].annotationType();
+    }
+
+    /**
+     * Returns the annotations of the given element
+     *
+     * @param element The element
+     * @return The annotations
+     */
+    static @NotNull AnnotationTable of(@NotNull AnnotatedElement element) {
+        if (element instanceof Class)
+            return CLASSES.get((Class<?>) element).annotations;
+        if (element instanceof Executable)
+            return CLASSES.get(((Executable) element).getDeclaringClass()).member(element);
+        if (element instanceof Parameter)
+            return CLASSES.get(((Parameter) element).getDeclaringExecutable().getDeclaringClass()).member(element);
+        return new AnnotationTable(element.getAnnotations());
+    }
+
+    /**
+     * Returns the annotations of the given class and the classes that enclose it
+     * which are distributed on its methods. Annotations of inner classes precede
+     * the ones of the same type of their enclosing classes.
+     *
+     * @param type The class
+     * @return The distributed annotations
+     */
+    static @NotNull AnnotationTable distributedOn(@NotNull Class<?> type) {
+        return CLASSES.get(type).distributed;
+    }
+
+    <T extends Annotation> @Nullable T get(@NotNull Class<T> type) {
+        Class<?>[] types = this.types;
+        for (int i = 0; i < types.length; i++)
+            if (types[i] == type)
+                return type.cast(annotations[i]);
+        return null;
+    }
+
+    boolean contains(@NotNull Class<? extends Annotation> type) {
+        for (Class<?> t : types)
+            if (t == type)
+                return true;
+        return false;
+    }
+
+    @NotNull Annotation get(int index) {
+        return annotations[index];
+    }
+
+    int size() {
+        return annotations.length;
+    }
+
+    boolean isEmpty() {
+        return annotations.length == 0;
+    }
+
+    /**
+     * Returns a table with the given annotation, replacing any annotation of its type
+     *
+     * @param annotation The annotation to add
+     * @return The new table
+     */
+    @NotNull AnnotationTable with(@NotNull Annotation annotation) {
+        Class<? extends Annotation> type = annotation.annotationType();
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == type) {
+                if (annotations[i] == annotation) return this;
+                Annotation[] copy = annotations.clone();
+                copy[i] = annotation;
+                return new AnnotationTable(copy);
+            }
+        }
+        Annotation[] copy = Arrays.copyOf(annotations, annotations.length + 1);
+        copy[annotations.length] = annotation;
+        return new AnnotationTable(copy);
+    }
+
+    /**
+     * Returns a table with the given annotation, if there is no annotation of its type
+     *
+     * @param annotation The annotation to add
+     * @return The new table, or this table if it has an annotation of that type.
+     */
+    @NotNull AnnotationTable withIfAbsent(@NotNull Annotation annotation) {
+        return contains(annotation.annotationType()) ? this : with(annotation);
+    }
+
+    @Override public String toString() {
+        return Arrays.toString(annotations);
+    }
+
+    private static final class ClassAnnotations {
+
+        private final AnnotationTable annotations;
+        private final AnnotationTable distributed;
+        private final Map<AnnotatedElement, AnnotationTable> members = new ConcurrentHashMap<>();
+
+        ClassAnnotations(Class<?> type) {
+            annotations = new AnnotationTable(type.getAnnotations());
+            AnnotationTable distributed = EMPTY;
+            for (Annotation annotation : annotations.annotations) {
+                if (annotation.annotationType().isAnnotationPresent(DistributeOnMethods.class))
+                    distributed = distributed.with(annotation);
+            }
+            Class<?> enclosing = type.getDeclaringClass();
+            if (enclosing != null) {
+                AnnotationTable outer = CLASSES.get(enclosing).distributed;
+                for (Annotation annotation : outer.annotations)
+                    distributed = distributed.withIfAbsent(annotation);
+            }
+            this.distributed = distributed;
+        }
+
+        AnnotationTable member(AnnotatedElement element) {
+            AnnotationTable table = members.get(element);
+            if (table == null) {
+                table = new AnnotationTable(element.getAnnotations());
+                AnnotationTable previous = members.putIfAbsent(element, table);
+                if (previous != null) table = previous;
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package revxrsal.commands.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+import org.jetbrains.annotations.UnmodifiableView;
+import revxrsal.commands.command.ArgumentStack;
+import revxrsal.commands.command.CommandParameter;
+import revxrsal.commands.util.tokenize.TokenSlices;
+
+import java.util.*;
+
+/**
+ * An {@link ArgumentStack} that is backed by an array, with a cursor over its head
+ * so that popping arguments does not move any of the remaining ones.
+ * <p>
+ * When created from {@link TokenSlices}, arguments are only materialized into strings
+ * when they are first accessed. Arguments that are only compared (such as when looking
+ * up flags and switches) are compared against the original input directly, and
+ * parameters that {@link CommandParameter#consumesAllString() consume all the string}
+ * receive the remainder of the original input as it was written, rather than the
+ * remaining arguments joined back together.
+ * <p>
+ * {@link #copy() Copies} share the array with the stack they were copied from, and
+ * only hold their own cursor. The array is only copied when either stack is modified
+ * in a way other than popping from its head.
+ *
+ * @see revxrsal.commands.CommandHandler#useArrayArgumentStacks()
+ */
+public final class ArrayArgumentStack extends AbstractList<String> implements ArgumentStack, RandomAccess {
+
+    private static final String[] NO_VALUES = {};
+
+    /**
+     * Marks an argument that has been put into {@link #values} rather than
+     * taken from the {@link #tokens}
+     */
+    private static final int REPLACED = -1;
+
+    private String[] values;
+
+    /**
+     * The token index of every argument in {@link #tokens}, or {@link #REPLACED}.
+     * Null when the stack is not backed by any tokens.
+     */
+    private int @Nullable [] slices;
+    private @Nullable TokenSlices tokens;
+    private int head, tail;
+
+    /**
+     * Whether are the arrays shared with other copies of this stack
+     */
+    private boolean shared;
+
+    private final List<String> unmodifiableView = Collections.unmodifiableList(this);
+
+    public ArrayArgumentStack() {
+        values = NO_VALUES;
+    }
+
+    public ArrayArgumentStack(@NotNull Collection<? extends String> c) {
+        values = c.toArray(NO_VALUES);
+        tail = values.length;
+    }
+
+    public ArrayArgumentStack(@NotNull String... c) {
+        values = c.clone();
+        tail = values.length;
+    }
+
+    public ArrayArgumentStack(@NotNull TokenSlices tokens) {
+        int size = tokens.size();
+        this.tokens = tokens;
+        values = new String[size];
+        slices = new int[size];
+        for (int i = 0; i < size; i++)
+            slices[i] = i;
+        tail = size;
+    }
+
+    private ArrayArgumentStack(@NotNull ArrayArgumentStack other) {
+        other.shared = true;
+        shared = true;
+        values = other.values;
+        slices = other.slices;
+        tokens = other.tokens;
+        head = other.head;
+        tail = other.tail;
+    }
+
+    /**
+     * Gives this stack its own copy of the arrays, if they are shared with
+     * other stacks.
+     */
+    private void unshare() {
+        if (!shared) return;
+        values = Arrays.copyOfRange(values, head, tail);
+        if (slices != null)
+            slices = Arrays.copyOfRange(slices, head, tail);
+        tail -= head;
+        head = 0;
+        shared = false;
+    }
+
+    private String element(int position) {
+        // copies that share the arrays map the same position to the same token,
+        // so materializing into a shared array is invisible to them.
+        if (values[position] == null && slices != null && slices[position] != REPLACED)
+            values[position] = tokens.get(slices[position]);
+        return values[position];
+    }
+
+    private void put(int position, String value) {
+        values[position] = value;
+        if (slices != null)
+            slices[position] = REPLACED;
+    }
+
+    private boolean matches(int position, Object o) {
+        if (slices != null && slices[position] != REPLACED)
+            return o instanceof String && tokens.matches(slices[position], (String) o);
+        return Objects.equals(values[position], o);
+    }
+
+    /**
+     * Makes room for one more argument at the tail
+     */
+    private void ensureCapacity() {
+        if (tail < values.length) return;
+        if (head > 0) { // reclaim the space of popped arguments first
+            int size = tail - head;
+            move(head, 0, size);
+            Arrays.fill(values, size, tail, null);
+            head = 0;
+            tail = size;
+            return;
+        }
+        int capacity = Math.max(values.length * 2, 8);
+        values = Arrays.copyOf(values, capacity);
+        if (slices != null)
+            slices = Arrays.copyOf(slices, capacity);
+    }
+
+    private void move(int from, int to, int length) {
+        System.arraycopy(values, from, values, to, length);
+        if (slices != null)
+            System.arraycopy(slices, from, slices, to, length);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+
+    @Override public String get(int index) {
+        checkIndex(index);
+        return element(head + index);
+    }
+
+    @Override public String set(int index, String element) {
+        checkIndex(index);
+        unshare();
+        String previous = element(head + index);
+        put(head + index, element);
+        return previous;
+    }
+
+    @Override public void add(int index, String element) {
+        if (index < 0 || index > size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        modCount++;
+        unshare();
+        if (index == 0 && head > 0) {
+            put(--head, element);
+            return;
+        }
+        ensureCapacity();
+        int position = head + index;
+        move(position, position + 1, tail - position);
+        put(position, element);
+        tail++;
+    }
+
+    @Override public String remove(int index) {
+        checkIndex(index);
+        modCount++;
+        String removed;
+        if (index == 0) { // only advances the cursor
+            removed = element(head);
+            if (!shared)
+                values[head] = null;
+            head++;
+        } else {
+            unshare();
+            int position = head + index;
+            removed = element(position);
+            move(position + 1, position, tail - position - 1);
+            values[--tail] = null;
+        }
+        if (head == tail)
+            head = tail = 0;
+        return removed;
+    }
+
+    @Override public int size() {
+        return tail - head;
+    }
+
+    @Override public void clear() {
+        modCount++;
+        if (shared) {
+            values = NO_VALUES;
+            shared = false;
+        } else {
+            Arrays.fill(values, head, tail, null);
+        }
+        head = tail = 0;
+        slices = null;
+        tokens = null;
+    }
+
+    @Override public int indexOf(Object o) {
+        for (int i = head; i < tail; i++)
+            if (matches(i, o))
+                return i - head;
+        return -1;
+    }
+
+    @Override public int lastIndexOf(Object o) {
+        for (int i = tail - 1; i >= head; i--)
+            if (matches(i, o))
+                return i - head;
+        return -1;
+    }
+
+    @Override public boolean contains(Object o) {
+        return indexOf(o) != -1;
+    }
+
+    @Override public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index == -1) return false;
+        remove(index);
+        return true;
+    }
+
+    @Override public void addFirst(String s) {
+        add(0, s);
+    }
+
+    @Override public void addLast(String s) {
+        add(size(), s);
+    }
+
+    @Override public boolean offerFirst(String s) {
+        addFirst(s);
+        return true;
+    }
+
+    @Override public boolean offerLast(String s) {
+        addLast(s);
+        return true;
+    }
+
+    @Override public String removeFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return remove(0);
+    }
+
+    @Override public String removeLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return remove(size() - 1);
+    }
+
+    @Override public String pollFirst() {
+        return isEmpty() ? null : remove(0);
+    }
+
+    @Override public String pollLast() {
+        return isEmpty() ? null : remove(size() - 1);
+    }
+
+    @Override public String getFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return get(0);
+    }
+
+    @Override public String getLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return get(size() - 1);
+    }
+
+    @Override public String peekFirst() {
+        return isEmpty() ? null : get(0);
+    }
+
+    @Override public String peekLast() {
+        return isEmpty() ? null : get(size() - 1);
+    }
+
+    @Override public boolean removeFirstOccurrence(Object o) {
+        return remove(o);
+    }
+
+    @Override public boolean removeLastOccurrence(Object o) {
+        int index = lastIndexOf(o);
+        if (index == -1) return false;
+        remove(index);
+        return true;
+    }
+
+    @Override public boolean offer(String s) {
+        return offerLast(s);
+    }
+
+    @Override public String remove() {
+        return removeFirst();
+    }
+
+    @Override public String poll() {
+        return pollFirst();
+    }
+
+    @Override public String element() {
+        return getFirst();
+    }
+
+    @Override public String peek() {
+        return peekFirst();
+    }
+
+    @Override public void push(String s) {
+        addFirst(s);
+    }
+
+    @Override public String pop() {
+        return removeFirst();
+    }
+
+    @Override public @NotNull Iterator<String> descendingIterator() {
+        ListIterator<String> iterator = listIterator(size());
+        return new Iterator<String>() {
+            @Override public boolean hasNext() {
+                return iterator.hasPrevious();
+            }
+
+            @Override public String next() {
+                return iterator.previous();
+            }
+
+            @Override public void remove() {
+                iterator.remove();
+            }
+        };
+    }
+
+    @Override public @NotNull String join(String delimiter) {
+        return join(delimiter, 0);
+    }
+
+    @Override public @NotNull String join(@NotNull String delimiter, int startIndex) {
+        StringJoiner joiner = new StringJoiner(delimiter);
+        for (int i = head + startIndex; i < tail; i++)
+            joiner.add(element(i));
+        return joiner.toString();
+    }
+
+    @Override public @NotNull String popForParameter(@NotNull CommandParameter parameter) {
+        if (parameter.consumesAllString()) {
+            String value = isRemainderOfInput() ? tokens.remainder(slices[head]) : join(" ");
+            clear();
+            return value;
+        }
+        return pop();
+    }
+
+    /**
+     * Returns whether are the remaining arguments the last tokens of the input,
+     * in order and unmodified.
+     */
+    private boolean isRemainderOfInput() {
+        if (slices == null || head == tail || slices[tail - 1] != tokens.size() - 1)
+            return false;
+        int first = slices[head];
+        if (first == REPLACED) return false;
+        for (int i = head + 1; i < tail; i++)
+            if (slices[i] != first + (i - head))
+                return false;
+        return true;
+    }
+
+    @Override public @NotNull @UnmodifiableView List<String> asImmutableView() {
+        return unmodifiableView;
+    }
+
+    @Override public @NotNull @Unmodifiable List<String> asImmutableCopy() {
+        return Collections.unmodifiableList(new ArrayList<>(this));
+    }
+
+    @Override public @NotNull ArgumentStack copy() {
+        return new ArrayArgumentStack(this);
+    }
+
+    @Override public ArrayArgumentStack clone() {
+        return new ArrayArgumentStack(this);
+    }
+}
@@ -15,14 +15,13 @@ import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyList;
 import static revxrsal.commands.util.Collections.listOf;
-import static revxrsal.commands.util.Preconditions.coerceIn;
 import static revxrsal.commands.util.Preconditions.notNull;
 
 final class BaseAutoCompleter implements AutoCompleter {
 
     private final BaseCommandHandler handler;
     final Map<String, SuggestionProvider> suggestionKeys = new HashMap<>();
-    final List<SuggestionProviderFactory> factories = new ArrayList<>();
+    final TypeIndexedFactories<SuggestionProviderFactory> factories = new TypeIndexedFactories<>();
 
     public BaseAutoCompleter(BaseCommandHandler handler) {
         this.handler = handler;
@@ -55,10 +54,10 @@ final class BaseAutoCompleter implements AutoCompleter {
     @Override public AutoCompleter registerParameterSuggestions(@NotNull Class<?> parameterType, @NotNull SuggestionProvider provider) {
         notNull(parameterType, "parameter type");
         notNull(provider, "provider");
-        registerSuggestionFactory(SuggestionProviderFactory.forType(parameterType, provider));
+        factories.add(parameterType, SuggestionProviderFactory.forType(parameterType, provider));
         Class<?> wrapped = Primitives.wrap(parameterType);
         if (wrapped != parameterType) {
-            registerSuggestionFactory(SuggestionProviderFactory.forType(wrapped, provider));
+            factories.add(wrapped, SuggestionProviderFactory.forType(wrapped, provider));
         }
         return this;
     }
@@ -82,7 +81,7 @@ final class BaseAutoCompleter implements AutoCompleter {
 
     @Override public AutoCompleter registerSuggestionFactory(int priority, @NotNull SuggestionProviderFactory factory) {
         notNull(factory, "suggestion provider factory cannot be null!");
-        factories.add(coerceIn(priority, 0, factories.size()), factory);
+        factories.add(priority, null, factory);
         return this;
     }
 
@@ -90,11 +89,9 @@ final class BaseAutoCompleter implements AutoCompleter {
         if (parameter.isSwitch()) {
             return SuggestionProvider.of(handler.switchPrefix + parameter.getSwitchName());
         }
-        for (SuggestionProviderFactory factory : factories) {
-            SuggestionProvider provider = factory.createSuggestionProvider(parameter);
-            if (provider == null) continue;
+        SuggestionProvider provider = factories.find(parameter.getType(), factory -> factory.createSuggestionProvider(parameter));
+        if (provider != null)
             return provider;
-        }
         if (parameter.getType().isEnum()) {
             return EnumSuggestionProviderFactory.INSTANCE.createSuggestionProvider(parameter);
         }
@@ -2,6 +2,7 @@ package revxrsal.commands.core;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
 import org.jetbrains.annotations.UnmodifiableView;
 import revxrsal.commands.CommandHandler;
 import revxrsal.commands.command.CommandActor;
@@ -12,6 +13,7 @@ import revxrsal.commands.command.ExecutableCommand;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 final class BaseCommandCategory implements CommandCategory {
 
@@ -19,13 +21,17 @@ final class BaseCommandCategory implements CommandCategory {
     CommandPath path;
     String name;
     @Nullable BaseCommandCategory parent;
-    @Nullable CommandExecutable defaultAction;
+    volatile @Nullable CommandExecutable defaultAction;
     CommandHandler handler;
 
+    // only touched while registering. readers see the published copies below.
     final Map<CommandPath, ExecutableCommand> commands = new HashMap<>();
     final Map<CommandPath, BaseCommandCategory> categories = new HashMap<>();
     final CommandPermission permission = new CategoryPermission();
 
+    private volatile @Unmodifiable Map<CommandPath, ExecutableCommand> publishedCommands = Collections.emptyMap();
+    private volatile @Unmodifiable Map<CommandPath, CommandCategory> publishedCategories = Collections.emptyMap();
+
     @Override public @NotNull String getName() {
         return name;
     }
@@ -51,11 +57,11 @@ final class BaseCommandCategory implements CommandCategory {
     }
 
     @Override public boolean isSecret() {
-        for (ExecutableCommand command : commands.values()) {
+        for (ExecutableCommand command : publishedCommands.values()) {
             if (command.isSecret()) continue;
             return false;
         }
-        for (CommandCategory category : categories.values()) {
+        for (CommandCategory category : publishedCategories.values()) {
             if (category.isSecret()) continue;
             return false;
         }
@@ -63,19 +69,53 @@ final class BaseCommandCategory implements CommandCategory {
     }
 
     @Override public boolean isEmpty() {
+        return defaultAction == null && publishedCommands.isEmpty() && publishedCategories.isEmpty();
+    }
+
+    /**
+     * Returns whether this category has no children, including ones that
+     * are not published yet.
+     *
+     * @return True if this category has no children
+     */
+    boolean hasNoChildren() {
         return defaultAction == null && commands.isEmpty() && categories.isEmpty();
     }
 
-    private final Map<CommandPath, CommandCategory> unmodifiableCategories = Collections.unmodifiableMap(categories);
+    /**
+     * Publishes the current children of this category, making them visible
+     * to {@link #getCommands()}, {@link #getCategories()} and the category permission.
+     */
+    void publish() {
+        publishedCommands = Collections.unmodifiableMap(new HashMap<>(commands));
+        publishedCategories = Collections.unmodifiableMap(new HashMap<>(categories));
+    }
 
-    @Override public @NotNull @UnmodifiableView Map<CommandPath, CommandCategory> getCategories() {
-        return unmodifiableCategories;
+    /**
+     * Removes the children of the given paths from the published children of this
+     * category, without publishing any children that were added since.
+     *
+     * @param paths The paths of the removed children
+     */
+    void unpublish(@NotNull Set<CommandPath> paths) {
+        if (!Collections.disjoint(publishedCommands.keySet(), paths)) {
+            Map<CommandPath, ExecutableCommand> commands = new HashMap<>(publishedCommands);
+            commands.keySet().removeAll(paths);
+            publishedCommands = Collections.unmodifiableMap(commands);
+        }
+        if (!Collections.disjoint(publishedCategories.keySet(), paths)) {
+            Map<CommandPath, CommandCategory> categories = new HashMap<>(publishedCategories);
+            categories.keySet().removeAll(paths);
+            publishedCategories = Collections.unmodifiableMap(categories);
+        }
     }
 
-    private final Map<CommandPath, ExecutableCommand> unmodifiableCommands = Collections.unmodifiableMap(commands);
+    @Override public @NotNull @UnmodifiableView Map<CommandPath, CommandCategory> getCategories() {
+        return publishedCategories;
+    }
 
     @Override public @NotNull @UnmodifiableView Map<CommandPath, ExecutableCommand> getCommands() {
-        return unmodifiableCommands;
+        return publishedCommands;
     }
 
     @Override public String toString() {
@@ -95,10 +135,10 @@ final class BaseCommandCategory implements CommandCategory {
     private class CategoryPermission implements CommandPermission {
 
         @Override public boolean canExecute(@NotNull CommandActor actor) {
-            for (ExecutableCommand command : commands.values())
+            for (ExecutableCommand command : publishedCommands.values())
                 if (command.getPermission().canExecute(actor))
                     return true;
-            for (CommandCategory category : categories.values())
+            for (CommandCategory category : publishedCategories.values())
                 if (category.getPermission().canExecute(actor))
                     return true;
             if (defaultAction == null)
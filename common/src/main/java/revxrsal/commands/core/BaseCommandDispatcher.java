@@ -3,6 +3,7 @@ package revxrsal.commands.core;
 import lombok.AllArgsConstructor;
 import lombok.SneakyThrows;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
 import revxrsal.commands.CommandHandler;
 import revxrsal.commands.command.ArgumentStack;
@@ -10,203 +11,325 @@ import revxrsal.commands.command.CommandActor;
 import revxrsal.commands.command.CommandParameter;
 import revxrsal.commands.command.ExecutableCommand;
 import revxrsal.commands.exception.*;
+import revxrsal.commands.metrics.CommandStats;
+import revxrsal.commands.metrics.CommandStats.Phase;
+import revxrsal.commands.process.CommandCondition;
 import revxrsal.commands.process.ContextResolver;
-import revxrsal.commands.process.ParameterResolver;
 import revxrsal.commands.process.ParameterResolver.ParameterResolverContext;
-import revxrsal.commands.process.ParameterValidator;
 import revxrsal.commands.process.ValueResolver.ValueResolverContext;
 
 import java.util.List;
-import java.util.function.Function;
 
 public final class BaseCommandDispatcher {
 
+    /**
+     * Passed as the tokenizing time of arguments that were not tokenized
+     * by the handler itself
+     */
+    static final long NOT_TOKENIZED = -1;
+
     private final BaseCommandHandler handler;
+    private final ThreadLocal<ReusableResolverContext> contexts;
 
     public BaseCommandDispatcher(BaseCommandHandler handler) {
         this.handler = handler;
+        contexts = ThreadLocal.withInitial(() -> new ReusableResolverContext(handler));
     }
 
     public Object eval(@NotNull CommandActor actor, @NotNull ArgumentStack arguments) {
+        return eval(actor, arguments, NOT_TOKENIZED);
+    }
+
+    /**
+     * Evaluates the command from the given arguments
+     *
+     * @param actor        The command actor
+     * @param arguments    The command arguments
+     * @param tokenizeTime The time it took to tokenize the arguments in nanoseconds,
+     *                     or {@link #NOT_TOKENIZED}.
+     * @return The command result
+     */
+    Object eval(@NotNull CommandActor actor, @NotNull ArgumentStack arguments, long tokenizeTime) {
         try {
-            MutableCommandPath path = MutableCommandPath.empty();
-            String argument = arguments.getFirst();
-            path.add(argument);
-            CommandExecutable executable = handler.executables.get(path);
-            if (executable != null) {
-                arguments.removeFirst();
-                return execute(executable, actor, arguments);
+            CommandExecutable executable = route(actor, arguments);
+            if (executable.async) {
+                handler.asyncExecutor.execute(() -> executeAndHandle(executable, actor, arguments, tokenizeTime));
+                return null;
             }
+            return execute(executable, actor, arguments, tokenizeTime);
+        } catch (Throwable throwable) {
+            handler.getExceptionHandler().handleException(throwable, actor);
+        }
+        return null;
+    }
 
-            BaseCommandCategory category = handler.categories.get(path);
-            if (category != null) {
-                arguments.removeFirst();
-                return searchCategory(actor, category, path, arguments);
-            } else {
-                throw new InvalidCommandException(path, path.getFirst());
-            }
+    /**
+     * Evaluates the command entirely on the current thread, regardless of
+     * whether is it {@link revxrsal.commands.annotation.Async} or not. This is
+     * used when the caller is already running on the async executor.
+     *
+     * @param actor        The command actor
+     * @param arguments    The command arguments
+     * @param tokenizeTime The time it took to tokenize the arguments in nanoseconds,
+     *                     or {@link #NOT_TOKENIZED}.
+     * @return The command result
+     */
+    Object evalInPlace(@NotNull CommandActor actor, @NotNull ArgumentStack arguments, long tokenizeTime) {
+        try {
+            return execute(route(actor, arguments), actor, arguments, tokenizeTime);
         } catch (Throwable throwable) {
             handler.getExceptionHandler().handleException(throwable, actor);
         }
         return null;
     }
 
-    private Object searchCategory(CommandActor actor, BaseCommandCategory category, MutableCommandPath path, ArgumentStack arguments) {
-        if (!arguments.isEmpty()) {
-            path.add(arguments.getFirst());
+    /**
+     * Tokenizes and evaluates a single entry of a batch on the current thread,
+     * even if its command is {@link revxrsal.commands.annotation.Async}.
+     *
+     * @param entry  The batch entry
+     * @param buffer The tokenizing buffer, shared by all entries on this thread
+     * @return The result of the entry
+     */
+    CommandBatch.Result evalBatchEntry(@NotNull CommandBatch.Entry entry, @NotNull StringBuilder buffer) {
+        CommandActor actor = entry.getActor();
+        try {
+            long start = System.nanoTime();
+            ArgumentStack arguments = handler.parseArguments(entry.getInput(), buffer);
+            long tokenizeTime = System.nanoTime() - start;
+            return new CommandBatch.Result(entry, execute(route(actor, arguments), actor, arguments, tokenizeTime), null);
+        } catch (Throwable throwable) {
+            handler.getExceptionHandler().handleException(throwable, actor);
+            return new CommandBatch.Result(entry, null, throwable);
         }
-        CommandExecutable executable = (CommandExecutable) category.commands.get(path);
-        if (executable != null) {
-            arguments.removeFirst();
-            return execute(executable, actor, arguments);
-        }
-        category.checkPermission(actor);
-        BaseCommandCategory found = (BaseCommandCategory) category.getCategories().get(path);
-        if (found == null) {
-            if (category.defaultAction == null)
-                throw new NoSubcommandSpecifiedException(category);
-            else {
-                return execute(category.defaultAction, actor, arguments);
+    }
+
+    private Object executeAndHandle(CommandExecutable executable, CommandActor actor, ArgumentStack arguments, long tokenizeTime) {
+        try {
+            return execute(executable, actor, arguments, tokenizeTime);
+        } catch (Throwable throwable) {
+            handler.getExceptionHandler().handleException(throwable, actor);
+        }
+        return null;
+    }
+
+    private CommandExecutable route(CommandActor actor, ArgumentStack arguments) {
+        String argument = arguments.getFirst();
+        CommandTrie.Node node = handler.registry.trie.root.child(argument);
+        if (node == null || (node.executable == null && node.category == null))
+            throw new InvalidCommandException(CommandPath.get(argument), argument.toLowerCase());
+        arguments.removeFirst();
+        if (node.executable != null)
+            return node.executable;
+        return searchCategory(actor, node, arguments);
+    }
+
+    private CommandExecutable searchCategory(CommandActor actor, CommandTrie.Node node, ArgumentStack arguments) {
+        while (true) {
+            BaseCommandCategory category = node.category;
+            CommandTrie.Node child = arguments.isEmpty() ? null : node.child(arguments.getFirst());
+            if (child != null && child.executable != null) {
+                arguments.removeFirst();
+                return child.executable;
+            }
+            category.checkPermission(actor);
+            if (child == null || child.category == null) {
+                if (node.defaultAction == null)
+                    throw new NoSubcommandSpecifiedException(category);
+                else
+                    return node.defaultAction;
             }
-        } else {
             arguments.removeFirst();
-            return searchCategory(actor, found, path, arguments);
+            node = child;
+        }
+    }
+
+    private Object execute(@NotNull CommandExecutable executable,
+                           @NotNull CommandActor actor,
+                           @NotNull ArgumentStack args,
+                           long tokenizeTime) {
+        CommandStats stats = handler.metrics.statsFor(executable);
+        if (stats == null)
+            return execute(executable, actor, args, null);
+        stats.recordInvocation();
+        if (tokenizeTime != NOT_TOKENIZED)
+            stats.recordLatency(Phase.TOKENIZE, tokenizeTime);
+        try {
+            return execute(executable, actor, args, stats);
+        } catch (Throwable throwable) {
+            stats.recordError(throwable);
+            throw throwable;
         }
     }
 
     private Object execute(@NotNull CommandExecutable executable,
                            @NotNull CommandActor actor,
-                           @NotNull ArgumentStack args) {
-        List<String> input = args.asImmutableCopy();
-        handler.conditions.forEach(condition -> condition.test(actor, executable, args.asImmutableView()));
-        Object[] methodArguments = getMethodArguments(executable, actor, args, input);
+                           @NotNull ArgumentStack args,
+                           @Nullable CommandStats stats) {
+        long time = stats == null ? 0 : System.nanoTime();
+        executable.build();
+        CommandCondition[] conditions = executable.conditions;
+        if (conditions.length > 0) {
+            List<String> view = args.asImmutableView();
+            for (CommandCondition condition : conditions)
+                condition.test(actor, executable, view);
+        }
+        if (stats != null) time = stats.record(Phase.CONDITION, time);
+        Object[] methodArguments;
+        if (handler.reuseContexts) {
+            ReusableResolverContext context = contexts.get();
+            if (context.inUse) // a command that is dispatched from inside another one
+                context = new ReusableResolverContext(handler);
+            try {
+                methodArguments = getMethodArguments(executable, actor, args, context.reset(actor, args, executable.parameters.size()));
+            } finally {
+                context.release();
+            }
+        } else {
+            methodArguments = getMethodArguments(executable, actor, args, new NewContexts(handler, args.asImmutableCopy(), actor, executable.parameters.size()));
+        }
         if (!args.isEmpty() && handler.failOnExtra) {
             throw new TooManyArgumentsException(executable, args);
         }
+        if (stats != null) time = stats.record(Phase.RESOLVE, time);
         Object result;
+        ResultCache cache = executable.resultCache;
+        if (cache != null) {
+            ResultCache.Key key = cache.key(actor, methodArguments);
+            result = cache.get(key);
+            if (result == ResultCache.MISS) {
+                result = invoke(executable, methodArguments);
+                cache.put(key, result);
+            }
+        } else {
+            result = invoke(executable, methodArguments);
+        }
+        if (stats != null) time = stats.record(Phase.INVOKE, time);
+        executable.responseHandler.handleResponse(result, actor, executable);
+        if (stats != null) stats.record(Phase.RESPONSE, time);
+        return result;
+    }
+
+    private static Object invoke(CommandExecutable executable, Object[] methodArguments) {
         try {
-            result = executable.methodCaller.call(methodArguments);
+            return executable.methodCaller.call(methodArguments);
         } catch (Throwable throwable) {
             throw new CommandInvocationException(executable, throwable);
         }
-        executable.responseHandler.handleResponse(result, actor, executable);
-        return result;
     }
 
     @SneakyThrows
-    private Object[] getMethodArguments(CommandExecutable executable, CommandActor actor, ArgumentStack args, List<String> input) {
-        Object[] values = new Object[executable.parameters.size()];
-        for (CommandParameter parameter : executable.parameters) {
-            if (ArgumentStack.class.isAssignableFrom(parameter.getType()))
-                values[parameter.getMethodIndex()] = args;
-            else if (parameter.isSwitch())
-                handleSwitch(args, values, parameter);
-            else if (parameter.isFlag())
-                handleFlag(input, actor, args, values, parameter);
-        }
-        for (CommandParameter parameter : executable.parameters) {
-            if (ArgumentStack.class.isAssignableFrom(parameter.getType())) {
-                values[parameter.getMethodIndex()] = args;
-                continue;
-            }
-            if (!parameter.isSwitch() && !parameter.isFlag()) {
-                ParameterResolver<?> resolver = parameter.getResolver();
-                if (!resolver.mutatesArguments()) {
-                    parameter.checkPermission(actor);
-                    ContextResolverContext cxt = new ContextResolverContext(input, actor, parameter, values);
-                    Object value = resolver.resolve(cxt);
-                    for (ParameterValidator<Object> v : parameter.getValidators()) {
-                        v.validate(value, parameter, actor);
-                    }
-                    values[parameter.getMethodIndex()] = value;
-                } else {
-                    if (!addDefaultValues(args, parameter, actor, values)) {
-                        parameter.checkPermission(actor);
-                        ValueContextR cxt = new ValueContextR(input, actor, parameter, values, args);
-                        Object value = resolver.resolve(cxt);
-                        for (ParameterValidator<Object> v : parameter.getValidators()) {
-                            v.validate(value, parameter, actor);
-                        }
-                        values[parameter.getMethodIndex()] = value;
-                    }
-                }
-            }
+    private Object[] getMethodArguments(CommandExecutable executable, CommandActor actor, ArgumentStack args, ResolverContexts contexts) {
+        Object[] values = contexts.values();
+        for (ParameterBinder binder : executable.binders) {
+            binder.bind(handler, actor, args, contexts, values);
         }
         return values;
     }
 
-    private boolean addDefaultValues(ArgumentStack args,
-                                     CommandParameter parameter,
-                                     CommandActor actor,
-                                     Object[] values) {
-        if (args.isEmpty()) {
-            if (parameter.getDefaultValue().isEmpty() && parameter.isOptional()) {
-                values[parameter.getMethodIndex()] = null;
-                return true;
-            } else {
-                if (!parameter.getDefaultValue().isEmpty()) {
-                    args.addAll(parameter.getDefaultValue());
-                    return false;
-                } else {
-                    throw new MissingArgumentException(parameter);
-                }
-            }
-        }
-        return false;
+    /**
+     * Supplies the resolver contexts that {@link ParameterBinder}s pass to
+     * the parameters' resolvers during a single invocation.
+     */
+    interface ResolverContexts {
+
+        /**
+         * Returns the array that resolved values are written to
+         *
+         * @return The method arguments
+         */
+        @NotNull Object[] values();
+
+        /**
+         * Returns the scratch array that switches and flags are extracted into
+         * before they are resolved, indexed like {@link #values()}. Unlike the
+         * values, this is never visible to resolvers.
+         *
+         * @return The extracted switches and flags
+         */
+        @NotNull Object[] flags();
+
+        /**
+         * Returns the context for resolving the given context parameter
+         *
+         * @param parameter The parameter being resolved
+         * @return The resolver context
+         */
+        @NotNull ContextResolver.ContextResolverContext context(@NotNull CommandParameter parameter);
+
+        /**
+         * Returns the context for resolving the given value parameter from
+         * the given arguments
+         *
+         * @param parameter The parameter being resolved
+         * @param arguments The arguments to resolve from
+         * @return The resolver context
+         */
+        @NotNull ValueResolverContext valueContext(@NotNull CommandParameter parameter, @NotNull ArgumentStack arguments);
+
+        /**
+         * Returns the arguments that the value of a flag is resolved from
+         *
+         * @param value The flag value
+         * @return The flag arguments
+         */
+        @NotNull ArgumentStack flagArguments(@NotNull String value) throws ArgumentParseException;
     }
 
-    private void handleSwitch(ArgumentStack args, Object[] values, CommandParameter parameter) {
-        boolean provided = args.remove(handler.switchPrefix + parameter.getSwitchName());
-        if (!provided)
-            values[parameter.getMethodIndex()] = parameter.getDefaultSwitch();
-        else
-            values[parameter.getMethodIndex()] = true;
-    }
+    /**
+     * The default {@link ResolverContexts}, which creates a new context for
+     * every parameter.
+     */
+    private static final class NewContexts implements ResolverContexts {
 
-    @SneakyThrows private void handleFlag(List<String> input, CommandActor actor, ArgumentStack args, Object[] values, CommandParameter parameter) {
-        String lookup = handler.getFlagPrefix() + parameter.getFlagName();
-        int index = args.indexOf(lookup);
-        ArgumentStack flagArguments;
-        if (index == -1) { // flag isn't specified, use default value or throw an MPE.
-            if (parameter.isOptional()) {
-                if (!parameter.getDefaultValue().isEmpty()) {
-                    args.add(lookup);
-                    args.addAll(parameter.getDefaultValue());
-                    index = args.indexOf(lookup);
-                    args.remove(index); // remove the flag prefix + flag name
-                    flagArguments = handler.parseArguments(args.remove(index)); // put the actual value in a separate argument stack
-                } else {
-                    for (ParameterValidator<Object> v : parameter.getValidators()) {
-                        v.validate(null, parameter, actor);
-                    }
-                    values[parameter.getMethodIndex()] = null;
-                    return;
-                }
-            } else {
-                throw new MissingArgumentException(parameter);
-            }
-        } else {
-            args.remove(index); // remove the flag prefix + flag name
-            if (index >= args.size())
-                throw new MissingArgumentException(parameter);
-            flagArguments = handler.parseArguments(args.remove(index)); // put the actual value in a separate argument stack
+        private final BaseCommandHandler handler;
+        private final List<String> input;
+        private final CommandActor actor;
+        private final Object[] values;
+        private Object[] flags;
+
+        NewContexts(BaseCommandHandler handler, List<String> input, CommandActor actor, int size) {
+            this.handler = handler;
+            this.input = input;
+            this.actor = actor;
+            this.values = new Object[size];
+        }
+
+        @Override public @NotNull Object[] values() {
+            return values;
+        }
+
+        @Override public @NotNull Object[] flags() {
+            if (flags == null)
+                flags = new Object[values.length];
+            return flags;
+        }
+
+        @Override public @NotNull ContextResolver.ContextResolverContext context(@NotNull CommandParameter parameter) {
+            return new ContextResolverContext(input, actor, parameter, values);
         }
-        ValueContextR contextR = new ValueContextR(input, actor, parameter, values, flagArguments);
-        Object value = parameter.getResolver().resolve(contextR);
-        for (ParameterValidator<Object> v : parameter.getValidators()) {
-            v.validate(value, parameter, actor);
+
+        @Override public @NotNull ValueResolverContext valueContext(@NotNull CommandParameter parameter, @NotNull ArgumentStack arguments) {
+            return new ValueContextR(input, actor, parameter, values, arguments);
         }
-        values[parameter.getMethodIndex()] = value;
 
+        @Override public @NotNull ArgumentStack flagArguments(@NotNull String value) throws ArgumentParseException {
+            if (handler.parsesAsItself(value)) {
+                ArgumentStack arguments = handler.emptyStack();
+                arguments.add(value);
+                return arguments;
+            }
+            return handler.parseArguments(value);
+        }
     }
 
     @AllArgsConstructor
-    private static abstract class ParamResolverContext implements ParameterResolverContext {
+    static abstract class ParamResolverContext implements ParameterResolverContext {
 
-        private final List<String> input;
-        private final CommandActor actor;
-        private final CommandParameter parameter;
-        private final Object[] resolved;
+        List<String> input;
+        CommandActor actor;
+        CommandParameter parameter;
+        Object[] resolved;
 
         @Override public @NotNull @Unmodifiable List<String> input() {
             return input;
@@ -245,14 +368,14 @@ public final class BaseCommandDispatcher {
         }
     }
 
-    private static final class ContextResolverContext extends ParamResolverContext implements ContextResolver.ContextResolverContext {
+    static final class ContextResolverContext extends ParamResolverContext implements ContextResolver.ContextResolverContext {
 
         public ContextResolverContext(List<String> input, CommandActor actor, CommandParameter parameter, Object[] resolved) {
             super(input, actor, parameter, resolved);
         }
     }
 
-    static final class ValueContextR extends ParamResolverContext implements ValueResolverContext {
+    static class ValueContextR extends ParamResolverContext implements ValueResolverContext {
 
         ArgumentStack argumentStack;
 
@@ -277,39 +400,47 @@ public final class BaseCommandDispatcher {
             return arguments().pop();
         }
 
-        private <T> T num(Function<String, T> f) {
+        private long popIntegral(long min, long max) {
             String input = pop();
             try {
-                if (input.startsWith("0x"))
-                    return (T) Integer.valueOf(input.substring(2), 16);
-                return f.apply(input);
+                return NumericParser.parseLong(input, min, max);
             } catch (NumberFormatException e) {
                 throw new InvalidNumberException(parameter(), input);
             }
         }
 
         @Override public int popInt() {
-            return num(Integer::parseInt);
+            return (int) popIntegral(Integer.MIN_VALUE, Integer.MAX_VALUE);
         }
 
         @Override public double popDouble() {
-            return num(Double::parseDouble);
+            String input = pop();
+            try {
+                return NumericParser.parseDouble(input);
+            } catch (NumberFormatException e) {
+                throw new InvalidNumberException(parameter(), input);
+            }
         }
 
         @Override public byte popByte() {
-            return num(Byte::parseByte);
+            return (byte) popIntegral(Byte.MIN_VALUE, Byte.MAX_VALUE);
         }
 
         @Override public short popShort() {
-            return num(Short::parseShort);
+            return (short) popIntegral(Short.MIN_VALUE, Short.MAX_VALUE);
         }
 
         @Override public float popFloat() {
-            return num(Float::parseFloat);
+            String input = pop();
+            try {
+                return NumericParser.parseFloat(input);
+            } catch (NumberFormatException e) {
+                throw new InvalidNumberException(parameter(), input);
+            }
         }
 
         @Override public long popLong() {
-            return num(Long::parseLong);
+            return popIntegral(Long.MIN_VALUE, Long.MAX_VALUE);
         }
     }
 }
@@ -2,12 +2,12 @@ package revxrsal.commands.core;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
 import org.jetbrains.annotations.UnmodifiableView;
 import revxrsal.commands.CommandHandler;
 import revxrsal.commands.CommandHandlerVisitor;
 import revxrsal.commands.annotation.Dependency;
 import revxrsal.commands.annotation.Description;
-import revxrsal.commands.annotation.Range;
 import revxrsal.commands.annotation.dynamic.AnnotationReplacer;
 import revxrsal.commands.autocomplete.AutoCompleter;
 import revxrsal.commands.command.*;
@@ -16,6 +16,7 @@ import revxrsal.commands.exception.*;
 import revxrsal.commands.help.CommandHelp;
 import revxrsal.commands.help.CommandHelpWriter;
 import revxrsal.commands.locales.Translator;
+import revxrsal.commands.metrics.CommandMetrics;
 import revxrsal.commands.orphan.OrphanCommand;
 import revxrsal.commands.orphan.OrphanRegistry;
 import revxrsal.commands.orphan.Orphans;
@@ -25,6 +26,8 @@ import revxrsal.commands.process.ValueResolver.ValueResolverContext;
 import revxrsal.commands.util.ClassMap;
 import revxrsal.commands.util.Primitives;
 import revxrsal.commands.util.StackTraceSanitizer;
+import revxrsal.commands.util.Strings;
+import revxrsal.commands.util.tokenize.QuotedStringTokenizer;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
@@ -34,7 +37,10 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
@@ -44,11 +50,15 @@ import static revxrsal.commands.util.Strings.splitBySpace;
 
 public class BaseCommandHandler implements CommandHandler {
 
+    // only mutated by register() and unregister() while holding the registry lock.
+    // everything else should read from the published registry.
     protected final Map<CommandPath, CommandExecutable> executables = new HashMap<>();
     protected final Map<CommandPath, BaseCommandCategory> categories = new HashMap<>();
+    private final Object registryLock = new Object();
+    volatile CommandRegistry registry = CommandRegistry.EMPTY;
     private final BaseCommandDispatcher dispatcher = new BaseCommandDispatcher(this);
 
-    final List<ResolverFactory> factories = new ArrayList<>();
+    final TypeIndexedFactories<ResolverFactory> factories = new TypeIndexedFactories<>();
     final BaseAutoCompleter autoCompleter = new BaseAutoCompleter(this);
     final ClassMap<List<ParameterValidator<Object>>> validators = new ClassMap<>();
     final ClassMap<ResponseHandler<?>> responseHandlers = new ClassMap<>();
@@ -63,6 +73,15 @@ public class BaseCommandHandler implements CommandHandler {
     String flagPrefix = "-", switchPrefix = "-", messagePrefix = "";
     CommandHelpWriter<?> helpWriter;
     boolean failOnExtra = false;
+    boolean reuseContexts = false;
+    boolean arrayStacks = false;
+    boolean lazyCommands = false;
+    boolean parallelParsing = false;
+    final CommandMetrics metrics = new CommandMetrics();
+    private final CompletionSessions completionSessions = new CompletionSessions();
+    Executor asyncExecutor = ForkJoinPool.commonPool();
+    Executor mainThreadExecutor = Runnable::run;
+    static final CommandCondition[] NO_CONDITIONS = new CommandCondition[0];
     final List<CommandCondition> conditions = new ArrayList<>();
     private final Translator translator = Translator.create();
 
@@ -70,22 +89,15 @@ public class BaseCommandHandler implements CommandHandler {
         registerContextResolverFactory(new SenderContextResolverFactory(senderResolvers));
         registerContextResolverFactory(DependencyResolverFactory.INSTANCE);
         registerValueResolverFactory(EitherValueResolverFactory.INSTANCE);
-        registerValueResolver(int.class, ValueResolverContext::popInt);
-        registerValueResolver(double.class, ValueResolverContext::popDouble);
-        registerValueResolver(short.class, ValueResolverContext::popShort);
-        registerValueResolver(byte.class, ValueResolverContext::popByte);
-        registerValueResolver(long.class, ValueResolverContext::popLong);
-        registerValueResolver(float.class, ValueResolverContext::popFloat);
+        registerValueResolver(int.class, NumericParser.INT);
+        registerValueResolver(double.class, NumericParser.DOUBLE);
+        registerValueResolver(short.class, NumericParser.SHORT);
+        registerValueResolver(byte.class, NumericParser.BYTE);
+        registerValueResolver(long.class, NumericParser.LONG);
+        registerValueResolver(float.class, NumericParser.FLOAT);
         registerValueResolver(boolean.class, bool());
         registerValueResolver(String.class, ValueResolverContext::popForParameter);
-        registerValueResolver(UUID.class, context -> {
-            String value = context.pop();
-            try {
-                return UUID.fromString(value);
-            } catch (Throwable t) {
-                throw new InvalidUUIDException(context.parameter(), value);
-            }
-        });
+        registerValueResolver(UUID.class, uuid());
         registerValueResolver(URL.class, context -> {
             String value = context.pop();
             try {
@@ -108,18 +120,20 @@ public class BaseCommandHandler implements CommandHandler {
         registerContextResolver((Class) CommandHelp.class, new BaseCommandHelp.Resolver(this));
         setExceptionHandler(DefaultExceptionHandler.INSTANCE);
         registerCondition(CooldownCondition.INSTANCE);
-        registerParameterValidator(Number.class, (value, parameter, actor) -> {
-            Range range = parameter.getAnnotation(Range.class);
-            if (range != null)
-                if (value.doubleValue() > range.max() || value.doubleValue() < range.min())
-                    throw new NumberNotInRangeException(actor, parameter, value, range.min(), range.max());
-        });
+        registerParameterValidator(Number.class, NumericParser.RANGE_VALIDATOR);
         registerCondition((actor, command, arguments) -> command.checkPermission(actor));
         registerAnnotationReplacer(Description.class, new LocalesAnnotationReplacer(this));
     }
 
     @Override
     public @NotNull CommandHandler register(@NotNull Object... commands) {
+        registerAll(Arrays.asList(commands));
+        return freeze();
+    }
+
+    @Override public @NotNull CommandHandler registerAll(@NotNull Iterable<?> commands) {
+        notNull(commands, "commands");
+        List<Object> containers = new ArrayList<>();
         for (Object command : commands) {
             notNull(command, "Command");
             if (command instanceof OrphanCommand) {
@@ -129,14 +143,32 @@ public class BaseCommandHandler implements CommandHandler {
             if (command instanceof Orphans) {
                 throw new IllegalArgumentException("You forgot to call .handler(OrphanCommand) in your Orphans.path(...)!");
             }
-            if (command instanceof OrphanRegistry) {
-                setDependencies(((OrphanRegistry) command).getHandler());
-                CommandParser.parse(this, ((OrphanRegistry) command));
-            } else {
-                setDependencies(command);
-                CommandParser.parse(this, command);
+            containers.add(command);
+        }
+        synchronized (registryLock) {
+            for (Object command : containers) {
+                if (command instanceof OrphanRegistry)
+                    setDependencies(((OrphanRegistry) command).getHandler());
+                else
+                    setDependencies(command);
             }
+            CommandParser.parse(this, containers);
         }
+        return this;
+    }
+
+    @Override public @NotNull CommandHandler freeze() {
+        synchronized (registryLock) {
+            publish();
+        }
+        return this;
+    }
+
+    /**
+     * Links the categories, resolves the permissions of the commands, and publishes
+     * the registry. Must be called while holding the registry lock.
+     */
+    private void publish() {
         for (BaseCommandCategory category : categories.values()) {
             CommandPath categoryPath = category.getPath().getCategoryPath();
             category.parent(categoryPath == null ? null : categories.get(categoryPath));
@@ -145,7 +177,7 @@ public class BaseCommandHandler implements CommandHandler {
         for (CommandExecutable executable : executables.values()) {
             findPermission(executable);
         }
-        return this;
+        registry = CommandRegistry.snapshot(executables, categories);
     }
 
     @Override public @NotNull Locale getLocale() {
@@ -189,17 +221,109 @@ public class BaseCommandHandler implements CommandHandler {
     }
 
     @Override public ArgumentStack parseArgumentsForCompletion(String... arguments) throws ArgumentParseException {
-        String args = String.join(" ", arguments);
-        if (args.isEmpty())
-            return ArgumentStack.copy(EMPTY_TEXT);
-        return argumentParser.parse(args);
+        if (isEmptyInput(arguments))
+            return arrayStacks ? new ArrayArgumentStack(EMPTY_TEXT) : ArgumentStack.copy(EMPTY_TEXT);
+        return parse(arguments);
+    }
+
+    @Override public ArgumentStack parseArgumentsForCompletion(@NotNull CommandActor actor, String... arguments) throws ArgumentParseException {
+        notNull(actor, "actor");
+        if (argumentParser != ArgumentParser.QUOTES && argumentParser != ArgumentParser.SLICED_QUOTES)
+            return parseArgumentsForCompletion(arguments);
+        if (isEmptyInput(arguments))
+            return arrayStacks ? new ArrayArgumentStack(EMPTY_TEXT) : ArgumentStack.copy(EMPTY_TEXT);
+        boolean arrayStack = arrayStacks || argumentParser == ArgumentParser.SLICED_QUOTES;
+        return completionSessions.parse(actor.getUniqueId(), String.join(" ", arguments), arrayStack);
     }
 
     @Override public ArgumentStack parseArguments(String... arguments) throws ArgumentParseException {
-        String args = String.join(" ", arguments);
-        if (args.isEmpty())
-            return ArgumentStack.empty();
-        return argumentParser.parse(args);
+        if (isEmptyInput(arguments))
+            return emptyStack();
+        return parse(arguments);
+    }
+
+    private static boolean isEmptyInput(String[] arguments) {
+        return arguments.length == 0 || (arguments.length == 1 && arguments[0].isEmpty());
+    }
+
+    /**
+     * Parses the given input, building the arguments with the given buffer
+     * when possible
+     *
+     * @param input  The input to parse
+     * @param buffer The buffer to build arguments with
+     * @return The argument stack
+     */
+    ArgumentStack parseArguments(String input, StringBuilder buffer) throws ArgumentParseException {
+        if (input.isEmpty())
+            return emptyStack();
+        if (argumentParser == ArgumentParser.QUOTES && !arrayStacks)
+            return QuotedStringTokenizer.INSTANCE.parse(input, buffer);
+        return parse(input);
+    }
+
+    /**
+     * Parses the given (non-empty) input with the argument parser. When array-backed
+     * stacks are used, the built-in parsers are swapped with equivalent ones that
+     * produce {@link ArrayArgumentStack}s.
+     *
+     * @param input The input to parse
+     * @return The argument stack
+     */
+    private ArgumentStack parse(String input) throws ArgumentParseException {
+        if (arrayStacks) {
+            if (argumentParser == ArgumentParser.QUOTES)
+                return ArgumentParser.SLICED_QUOTES.parse(input);
+            if (argumentParser == ArgumentParser.NO_QUOTES)
+                return new ArrayArgumentStack(Strings.SPACE.split(input));
+        }
+        return argumentParser.parse(input);
+    }
+
+    /**
+     * Parses the given (non-empty) split arguments with the argument parser.
+     *
+     * @param arguments The arguments to parse
+     * @return The argument stack
+     * @see #parse(String)
+     */
+    private ArgumentStack parse(String[] arguments) throws ArgumentParseException {
+        if (arrayStacks) {
+            if (argumentParser == ArgumentParser.QUOTES)
+                return ArgumentParser.SLICED_QUOTES.parse(arguments);
+            if (argumentParser == ArgumentParser.NO_QUOTES)
+                return parse(String.join(" ", arguments));
+        }
+        return argumentParser.parse(arguments);
+    }
+
+    /**
+     * Returns whether would the argument parser parse the given value into
+     * a single argument that is equal to the value, so that parsing it can be skipped.
+     * This is only known for the built-in parsers.
+     *
+     * @param value The value to parse
+     * @return Whether parsing the value can be skipped
+     */
+    boolean parsesAsItself(String value) {
+        if (argumentParser != ArgumentParser.QUOTES && argumentParser != ArgumentParser.SLICED_QUOTES && argumentParser != ArgumentParser.NO_QUOTES)
+            return false;
+        if (value.isEmpty()) return false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c) || c == '"' || c == '\'' || c == '\\')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates a new, empty argument stack of the type used by this handler
+     *
+     * @return The new argument stack
+     */
+    ArgumentStack emptyStack() {
+        return arrayStacks ? new ArrayArgumentStack() : ArgumentStack.empty();
     }
 
     /**
@@ -263,6 +387,52 @@ public class BaseCommandHandler implements CommandHandler {
         return this;
     }
 
+    @Override public @NotNull CommandHandler reuseResolverContexts() {
+        reuseContexts = true;
+        return this;
+    }
+
+    @Override public @NotNull CommandHandler useArrayArgumentStacks() {
+        arrayStacks = true;
+        return this;
+    }
+
+    @Override public @NotNull CommandHandler lazilyBuildCommands() {
+        lazyCommands = true;
+        return this;
+    }
+
+    /**
+     * Returns whether is the given command built. Commands are only not built
+     * when they are {@link #lazilyBuildCommands() built lazily} and were not used yet,
+     * in which case asking them for their parameters or usage builds them.
+     *
+     * @param command The command to check
+     * @return Whether is the command built
+     */
+    protected final boolean isBuilt(@NotNull ExecutableCommand command) {
+        return !(command instanceof CommandExecutable) || ((CommandExecutable) command).builder == null;
+    }
+
+    @Override public @NotNull CommandHandler parseCommandsInParallel() {
+        parallelParsing = true;
+        return this;
+    }
+
+    @Override public @NotNull CommandHandler setAsyncExecutor(@NotNull Executor executor) {
+        asyncExecutor = notNull(executor, "executor");
+        return this;
+    }
+
+    @Override public @NotNull Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    @Override public @NotNull CommandHandler setMainThreadExecutor(@NotNull Executor executor) {
+        mainThreadExecutor = notNull(executor, "executor");
+        return this;
+    }
+
     @Override public @NotNull CommandHandler registerSenderResolver(@NotNull SenderResolver resolver) {
         notNull(resolver, "resolver");
         senderResolvers.add(resolver);
@@ -280,7 +450,7 @@ public class BaseCommandHandler implements CommandHandler {
         notNull(resolver, "resolver");
         if (type.isPrimitive())
             registerValueResolver(Primitives.wrap(type), resolver);
-        factories.add(new ResolverFactory(ValueResolverFactory.forType(type, resolver)));
+        factories.add(type, new ResolverFactory(ValueResolverFactory.forType(type, resolver)));
         return this;
     }
 
@@ -289,7 +459,7 @@ public class BaseCommandHandler implements CommandHandler {
         notNull(resolver, "resolver");
         if (type.isPrimitive())
             registerValueResolver(priority, Primitives.wrap(type), resolver);
-        factories.add(coerceIn(priority, 0, factories.size()), new ResolverFactory(ValueResolverFactory.forType(type, resolver)));
+        factories.add(priority, type, new ResolverFactory(ValueResolverFactory.forType(type, resolver)));
         return this;
     }
 
@@ -298,7 +468,7 @@ public class BaseCommandHandler implements CommandHandler {
         notNull(resolver, "resolver");
         if (type.isPrimitive())
             registerContextResolver(Primitives.wrap(type), resolver);
-        factories.add(new ResolverFactory(ContextResolverFactory.forType(type, resolver)));
+        factories.add(type, new ResolverFactory(ContextResolverFactory.forType(type, resolver)));
         return this;
     }
 
@@ -307,7 +477,7 @@ public class BaseCommandHandler implements CommandHandler {
         notNull(resolver, "resolver");
         if (type.isPrimitive())
             registerContextResolver(Primitives.wrap(type), resolver);
-        factories.add(coerceIn(priority, 0, factories.size()), new ResolverFactory(ContextResolverFactory.forType(type, resolver)));
+        factories.add(priority, type, new ResolverFactory(ContextResolverFactory.forType(type, resolver)));
         return this;
     }
 
@@ -327,7 +497,7 @@ public class BaseCommandHandler implements CommandHandler {
 
     @Override public @NotNull CommandHandler registerValueResolverFactory(int priority, @NotNull ValueResolverFactory factory) {
         notNull(factory, "value resolver factory");
-        factories.add(coerceIn(priority, 0, factories.size()), new ResolverFactory(factory));
+        factories.add(priority, null, new ResolverFactory(factory));
         return this;
     }
 
@@ -339,16 +509,42 @@ public class BaseCommandHandler implements CommandHandler {
 
     @Override public @NotNull CommandHandler registerContextResolverFactory(int priority, @NotNull ContextResolverFactory factory) {
         notNull(factory, "context resolver factory");
-        factories.add(coerceIn(priority, 0, factories.size()), new ResolverFactory(factory));
+        factories.add(priority, null, new ResolverFactory(factory));
         return this;
     }
 
     @Override public @NotNull CommandHandler registerCondition(@NotNull CommandCondition condition) {
         notNull(condition, "condition");
-        conditions.add(condition);
+        synchronized (registryLock) {
+            conditions.add(condition);
+            for (CommandExecutable executable : executables.values())
+                executable.conditions = compileConditions(executable);
+            // default actions are only reachable through their categories
+            for (BaseCommandCategory category : categories.values()) {
+                CommandExecutable defaultAction = category.defaultAction;
+                if (defaultAction != null)
+                    defaultAction.conditions = compileConditions(defaultAction);
+            }
+        }
         return this;
     }
 
+    /**
+     * Returns the conditions that apply to the given command, in the
+     * order they were registered.
+     *
+     * @param command The command to compile for
+     * @return The command conditions
+     * @see CommandCondition#appliesTo(ExecutableCommand)
+     */
+    CommandCondition[] compileConditions(@NotNull ExecutableCommand command) {
+        List<CommandCondition> applicable = new ArrayList<>(conditions.size());
+        for (CommandCondition condition : conditions)
+            if (condition.appliesTo(command))
+                applicable.add(condition);
+        return applicable.isEmpty() ? NO_CONDITIONS : applicable.toArray(NO_CONDITIONS);
+    }
+
     @Override public @NotNull <T> CommandHandler registerDependency(@NotNull Class<T> type, @NotNull Supplier<T> supplier) {
         notNull(type, "type");
         notNull(supplier, "supplier");
@@ -408,27 +604,46 @@ public class BaseCommandHandler implements CommandHandler {
     }
 
     @Override public ExecutableCommand getCommand(@NotNull CommandPath path) {
-        return executables.get(path);
+        return registry.commands.get(path);
     }
 
     @Override public CommandCategory getCategory(@NotNull CommandPath path) {
-        return categories.get(path);
+        return registry.categories.get(path);
     }
 
     @Override public @UnmodifiableView @NotNull Map<CommandPath, ExecutableCommand> getCommands() {
-        return Collections.unmodifiableMap(executables);
+        return registry.commands;
+    }
+
+    @Override public @NotNull CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override public @Nullable ResultCache getResultCache(@NotNull ExecutableCommand command) {
+        notNull(command, "command");
+        if (!(command instanceof CommandExecutable)) return null;
+        CommandExecutable executable = (CommandExecutable) command;
+        executable.build();
+        return executable.resultCache;
+    }
+
+    @Override public @NotNull CommandHandler invalidateCachedResults() {
+        for (ExecutableCommand command : registry.commands.values()) {
+            ResultCache cache = ((CommandExecutable) command).resultCache;
+            if (cache != null)
+                cache.invalidateAll();
+        }
+        return this;
     }
 
     @Override public @UnmodifiableView @NotNull Map<CommandPath, CommandCategory> getCategories() {
-        return Collections.unmodifiableMap(categories);
+        return registry.categories;
     }
 
     public <T> ParameterResolver<T> getResolver(CommandParameter parameter) {
-        for (ResolverFactory factory : factories) {
-            Resolver resolver = factory.create(parameter);
-            if (resolver == null) continue;
+        Resolver resolver = factories.find(parameter.getType(), factory -> factory.create(parameter));
+        if (resolver != null)
             return (ParameterResolver<T>) resolver;
-        }
         if (parameter.getType().isEnum()) {
             return (ParameterResolver<T>) new Resolver(null, EnumResolverFactory.INSTANCE.create(parameter));
         }
@@ -447,45 +662,51 @@ public class BaseCommandHandler implements CommandHandler {
         return (CommandHelpWriter<T>) helpWriter;
     }
 
-    private void unregister(CommandPath path, CommandExecutable command) {
+    private void unregister(CommandExecutable command, Set<CommandPath> removed) {
+        executables.remove(command.path);
+        removed.add(command.path);
+        metrics.remove(command);
         BaseCommandCategory parent = command.parent;
         if (parent != null) {
-            parent.commands.remove(path);
-            if (parent.isEmpty()) categories.remove(parent.path);
+            parent.commands.remove(command.path);
+            if (parent.hasNoChildren() && categories.remove(parent.path) != null) removed.add(parent.path);
         }
     }
 
-    private void unregister(CommandPath path, BaseCommandCategory category) {
+    private void unregister(BaseCommandCategory category, Set<CommandPath> removed) {
+        categories.remove(category.path);
+        removed.add(category.path);
+        CommandExecutable defaultAction = category.defaultAction;
+        if (defaultAction != null) metrics.remove(defaultAction);
         BaseCommandCategory parent = category.parent;
         if (parent != null) {
-            parent.commands.remove(path);
-            if (parent.isEmpty()) categories.remove(parent.path);
+            parent.categories.remove(category.path);
+            if (parent.hasNoChildren() && categories.remove(parent.path) != null) removed.add(parent.path);
         }
     }
 
-    @Override public boolean unregister(@NotNull CommandPath path) {
-        boolean modified = false;
-        for (Iterator<Entry<CommandPath, CommandExecutable>> iterator = executables.entrySet().iterator(); iterator.hasNext(); ) {
-            Entry<CommandPath, CommandExecutable> entry = iterator.next();
-            if (entry.getKey().isChildOf(path)) {
-                modified = true;
-                iterator.remove();
-                unregister(path, entry.getValue());
-            }
-        }
-        for (Iterator<Entry<CommandPath, BaseCommandCategory>> iterator = categories.entrySet().iterator(); iterator.hasNext(); ) {
-            Entry<CommandPath, BaseCommandCategory> entry = iterator.next();
-            if (entry.getKey().isChildOf(path)) {
-                modified = true;
-                iterator.remove();
-                unregister(path, entry.getValue());
-            }
+    private boolean unregister(@NotNull Iterable<String> path) {
+        synchronized (registryLock) {
+            CommandTrie.Node node = registry.trie.find(path);
+            if (node == null) return false;
+            Set<CommandPath> removed = new HashSet<>();
+            node.forEach(n -> {
+                if (n.executable != null) unregister(n.executable, removed);
+                if (n.category != null) unregister(n.category, removed);
+            });
+            // only publish the removal. commands that were registered with registerAll()
+            // are left for freeze() to publish.
+            registry = registry.without(removed);
+            return true;
         }
-        return modified;
+    }
+
+    @Override public boolean unregister(@NotNull CommandPath path) {
+        return unregister((Iterable<String>) path);
     }
 
     @Override public boolean unregister(@NotNull String commandPath) {
-        return unregister(CommandPath.get(splitBySpace(commandPath)));
+        return unregister(splitBySpace(commandPath));
     }
 
     @Override public void unregisterAllCommands() {
@@ -496,9 +717,10 @@ public class BaseCommandHandler implements CommandHandler {
     }
 
     @Override public @NotNull Set<CommandPath> getRootPaths() {
+        CommandRegistry registry = this.registry;
         Set<CommandPath> paths = new HashSet<>();
-        for (CommandPath path : categories.keySet()) if (path.isRoot()) paths.add(path);
-        for (CommandPath path : executables.keySet()) if (path.isRoot()) paths.add(path);
+        for (CommandPath path : registry.categories.keySet()) if (path.isRoot()) paths.add(path);
+        for (CommandPath path : registry.commands.keySet()) if (path.isRoot()) paths.add(path);
         return paths;
     }
 
@@ -515,18 +737,88 @@ public class BaseCommandHandler implements CommandHandler {
     }
 
     @Override public <T> @NotNull Optional<@Nullable T> dispatch(@NotNull CommandActor actor, @NotNull ArgumentStack arguments) {
-        return (Optional<T>) Optional.ofNullable(dispatcher.eval(actor, arguments));
+        return result(dispatcher.eval(actor, arguments));
     }
 
     @Override public <T> @NotNull Optional<@Nullable T> dispatch(@NotNull CommandActor actor, @NotNull String commandInput) {
         try {
-            return dispatch(actor, parseArguments(commandInput));
+            long start = System.nanoTime();
+            ArgumentStack arguments = parseArguments(commandInput);
+            return result(dispatcher.eval(actor, arguments, System.nanoTime() - start));
         } catch (Throwable t) {
             getExceptionHandler().handleException(t, actor);
             return Optional.empty();
         }
     }
 
+    @Override public <T> @NotNull CompletionStage<Optional<@Nullable T>> dispatchAsync(@NotNull CommandActor actor, @NotNull ArgumentStack arguments) {
+        return submitAsync(actor, arguments, null);
+    }
+
+    @Override public <T> @NotNull CompletionStage<Optional<@Nullable T>> dispatchAsync(@NotNull CommandActor actor, @NotNull String commandInput) {
+        return submitAsync(actor, null, commandInput);
+    }
+
+    @Override public @NotNull @Unmodifiable List<CommandBatch.Result> dispatchBatch(@NotNull CommandBatch batch) {
+        notNull(batch, "batch");
+        List<CommandBatch.Entry> entries = batch.getEntries();
+        CommandBatch.Result[] results = new CommandBatch.Result[entries.size()];
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < results.length; i++)
+            results[i] = dispatcher.evalBatchEntry(entries.get(i), buffer);
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    @Override public @NotNull CompletionStage<@Unmodifiable List<CommandBatch.Result>> dispatchBatch(@NotNull CommandBatch batch, @NotNull Executor executor) {
+        notNull(batch, "batch");
+        notNull(executor, "executor");
+        List<CommandBatch.Entry> entries = batch.getEntries();
+        CommandBatch.Result[] results = new CommandBatch.Result[entries.size()];
+
+        // entries of the same actor keep their order, so each actor gets a single task
+        Map<UUID, List<Integer>> byActor = new LinkedHashMap<>();
+        for (int i = 0; i < results.length; i++)
+            byActor.computeIfAbsent(entries.get(i).getActor().getUniqueId(), u -> new ArrayList<>()).add(i);
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[byActor.size()];
+        int task = 0;
+        for (List<Integer> indices : byActor.values()) {
+            tasks[task++] = CompletableFuture.runAsync(() -> {
+                StringBuilder buffer = new StringBuilder();
+                for (int index : indices)
+                    results[index] = dispatcher.evalBatchEntry(entries.get(index), buffer);
+            }, executor);
+        }
+        return CompletableFuture.allOf(tasks).thenApply(v -> Collections.unmodifiableList(Arrays.asList(results)));
+    }
+
+    /**
+     * Wraps the result of a command, whose type is declared by the caller
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Optional<T> result(@Nullable Object result) {
+        return Optional.ofNullable((T) result);
+    }
+
+    private <T> CompletionStage<Optional<T>> submitAsync(CommandActor actor, @Nullable ArgumentStack arguments, @Nullable String input) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    if (arguments != null)
+                        return BaseCommandHandler.<T>result(dispatcher.evalInPlace(actor, arguments, BaseCommandDispatcher.NOT_TOKENIZED));
+                    long start = System.nanoTime();
+                    ArgumentStack parsed = parseArguments(input);
+                    return BaseCommandHandler.<T>result(dispatcher.evalInPlace(actor, parsed, System.nanoTime() - start));
+                } catch (Throwable t) {
+                    getExceptionHandler().handleException(t, actor);
+                    return Optional.empty();
+                }
+            }, asyncExecutor);
+        } catch (Throwable t) { // the executor rejected the task
+            getExceptionHandler().handleException(t, actor);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+    }
+
     @Override public <T> Supplier<T> getDependency(@NotNull Class<T> dependencyType) {
         return (Supplier<T>) dependencies.getFlexible(dependencyType);
     }
@@ -552,27 +844,83 @@ public class BaseCommandHandler implements CommandHandler {
     }
 
     private ValueResolver<Boolean> bool() {
-        return context -> {
-            String v = context.pop();
-            switch (v.toLowerCase()) {
-                case "true":
-                case "yes":
-                case "ye":
-                case "y":
-                case "yeah":
-                case "ofcourse":
-                case "mhm":
-                    return true;
-                case "false":
-                case "no":
-                case "n":
-                    return false;
-                default:
+        return new ProbingValueResolver<Boolean>() {
+            @Override public Boolean resolve(@NotNull ValueResolverContext context) {
+                String v = context.pop();
+                Boolean value = parseBoolean(v);
+                if (value == null)
                     throw new InvalidBooleanException(context.parameter(), v);
+                return value;
+            }
+
+            @Override public Object tryResolve(@NotNull ValueResolverContext context) {
+                String v = context.arguments().peekFirst();
+                Boolean value = v == null ? null : parseBoolean(v);
+                if (value == null) return NO_MATCH;
+                context.arguments().removeFirst();
+                return value;
             }
         };
     }
 
+    private static @Nullable Boolean parseBoolean(String v) {
+        switch (v.toLowerCase()) {
+            case "true":
+            case "yes":
+            case "ye":
+            case "y":
+            case "yeah":
+            case "ofcourse":
+            case "mhm":
+                return true;
+            case "false":
+            case "no":
+            case "n":
+                return false;
+            default:
+                return null;
+        }
+    }
+
+    private ValueResolver<UUID> uuid() {
+        return new ProbingValueResolver<UUID>() {
+            @Override public UUID resolve(@NotNull ValueResolverContext context) {
+                String value = context.pop();
+                try {
+                    return UUID.fromString(value);
+                } catch (Throwable t) {
+                    throw new InvalidUUIDException(context.parameter(), value);
+                }
+            }
+
+            @Override public Object tryResolve(@NotNull ValueResolverContext context) {
+                String value = context.arguments().peekFirst();
+                if (value == null || !mayBeUUID(value)) return NO_MATCH;
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(value);
+                } catch (Throwable t) {
+                    return NO_MATCH;
+                }
+                context.arguments().removeFirst();
+                return uuid;
+            }
+        };
+    }
+
+    /**
+     * Returns whether may the given value be a UUID, which is separated
+     * into 5 components by dashes.
+     */
+    private static boolean mayBeUUID(String value) {
+        int dashes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '-' && ++dashes > 4)
+                return false;
+        }
+        return dashes == 4;
+    }
+
     private class WrappedExceptionHandler implements CommandExceptionHandler {
 
         private final ClassMap<BiConsumer<CommandActor, Throwable>> exceptionsHandlers = new ClassMap<>();
@@ -49,7 +49,7 @@ final class BaseCommandHelp<T> extends ArrayList<T> implements CommandHelp<T> {
             BaseCommandHelp<Object> entries = new BaseCommandHelp<>();
             CommandCategory parent = helpCommand.getParent();
             CommandPath parentPath = parent == null ? null : parent.getPath();
-            handler.executables.values().stream().sorted().forEach(c -> {
+            handler.getCommands().values().stream().sorted().forEach(c -> {
                 if (parentPath == null || parentPath.isParentOf(c.getPath())) {
                     if (c != helpCommand) {
                         Object generated = writer.generate(c, context.actor());
@@ -0,0 +1,174 @@
+package revxrsal.commands.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+import revxrsal.commands.CommandHandler;
+import revxrsal.commands.command.CommandActor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import static revxrsal.commands.util.Preconditions.notNull;
+
+/**
+ * A batch of command inputs, each of which is dispatched by a specific actor.
+ * <p>
+ * Dispatching a batch through {@link CommandHandler#dispatchBatch(CommandBatch)} is
+ * equivalent to dispatching every entry with {@link CommandHandler#dispatch(CommandActor, String)},
+ * however, it shares the tokenizing buffers between entries, and reports the outcome of
+ * every entry as a {@link Result}.
+ * <p>
+ * Batches can also be dispatched in parallel with {@link CommandHandler#dispatchBatch(CommandBatch, Executor)}.
+ * Entries of the same actor are considered dependent on each other, and are always
+ * dispatched in the order they were added.
+ */
+public final class CommandBatch {
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final @UnmodifiableView List<Entry> entriesView = Collections.unmodifiableList(entries);
+
+    private CommandBatch() {}
+
+    /**
+     * Creates a new, empty batch
+     *
+     * @return The new batch
+     */
+    public static @NotNull CommandBatch create() {
+        return new CommandBatch();
+    }
+
+    /**
+     * Adds the given input to this batch
+     *
+     * @param actor The actor to dispatch as
+     * @param input The command input
+     * @return This batch
+     */
+    public @NotNull CommandBatch add(@NotNull CommandActor actor, @NotNull String input) {
+        notNull(actor, "actor");
+        notNull(input, "input");
+        entries.add(new Entry(actor, input));
+        return this;
+    }
+
+    /**
+     * Returns the entries of this batch, in the order they were added
+     *
+     * @return The batch entries
+     */
+    public @NotNull @UnmodifiableView List<Entry> getEntries() {
+        return entriesView;
+    }
+
+    /**
+     * Returns the number of entries in this batch
+     *
+     * @return The batch size
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Represents a single input of a batch
+     */
+    public static final class Entry {
+
+        private final CommandActor actor;
+        private final String input;
+
+        private Entry(CommandActor actor, String input) {
+            this.actor = actor;
+            this.input = input;
+        }
+
+        /**
+         * Returns the actor that dispatches this entry
+         *
+         * @return The actor
+         */
+        public @NotNull CommandActor getActor() {
+            return actor;
+        }
+
+        /**
+         * Returns the command input of this entry
+         *
+         * @return The input
+         */
+        public @NotNull String getInput() {
+            return input;
+        }
+
+        @Override public String toString() {
+            return "Entry{actor=" + actor.getName() + ", input='" + input + "'}";
+        }
+    }
+
+    /**
+     * Represents the outcome of dispatching a single {@link Entry}.
+     * <p>
+     * Errors are still passed to the {@link CommandHandler#getExceptionHandler() exception handler}
+     * as usual, and are additionally reported here.
+     */
+    public static final class Result {
+
+        private final Entry entry;
+        private final @Nullable Object result;
+        private final @Nullable Throwable error;
+
+        Result(Entry entry, @Nullable Object result, @Nullable Throwable error) {
+            this.entry = entry;
+            this.result = result;
+            this.error = error;
+        }
+
+        /**
+         * Returns the entry this result belongs to
+         *
+         * @return The entry
+         */
+        public @NotNull Entry getEntry() {
+            return entry;
+        }
+
+        /**
+         * Returns the value returned from invoking the command method. This
+         * will be empty if the method returned null, or if the entry has failed.
+         *
+         * @return The command result
+         */
+        @SuppressWarnings("unchecked") // the caller declares the result type
+        public <T> @NotNull Optional<T> getResult() {
+            return Optional.ofNullable((T) result);
+        }
+
+        /**
+         * Returns the exception that was thrown while dispatching the
+         * entry, if any.
+         *
+         * @return The exception, or null if the entry succeeded.
+         */
+        public @Nullable Throwable getError() {
+            return error;
+        }
+
+        /**
+         * Returns whether was the entry dispatched without any errors
+         *
+         * @return If the entry has succeeded
+         */
+        public boolean isSuccessful() {
+            return error == null;
+        }
+
+        @Override public String toString() {
+            return "Result{entry=" + entry + (error == null ? ", result=" + result : ", error=" + error) + "}";
+        }
+    }
+}
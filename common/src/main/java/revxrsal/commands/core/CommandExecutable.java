@@ -11,6 +11,7 @@ import revxrsal.commands.command.CommandParameter;
 import revxrsal.commands.command.CommandPermission;
 import revxrsal.commands.command.ExecutableCommand;
 import revxrsal.commands.core.reflect.MethodCaller.BoundMethodCaller;
+import revxrsal.commands.process.CommandCondition;
 import revxrsal.commands.process.ResponseHandler;
 
 import java.lang.annotation.Annotation;
@@ -30,13 +31,46 @@ class CommandExecutable implements ExecutableCommand {
     String name, usage, description;
     Method method;
     AnnotationReader reader;
-    boolean secret;
+    boolean secret, async;
     BoundMethodCaller methodCaller;
     BaseCommandCategory parent;
     @SuppressWarnings("rawtypes") ResponseHandler responseHandler = CommandParser.VOID_HANDLER;
     private CommandPermission permission = CommandPermission.ALWAYS_TRUE;
     @Unmodifiable List<CommandParameter> parameters;
     @Unmodifiable Map<Integer, CommandParameter> resolveableParameters;
+    ParameterBinder[] binders = ParameterBinder.NONE;
+    @Nullable ResultCache resultCache;
+    volatile CommandCondition[] conditions = BaseCommandHandler.NO_CONDITIONS;
+
+    /**
+     * Builds the rest of this command on its first use, or null if it is
+     * already built.
+     *
+     * @see CommandHandler#lazilyBuildCommands()
+     */
+    volatile @Nullable Runnable builder;
+    private boolean building;
+
+    /**
+     * Builds the rest of this command if it is lazily built and was not built
+     * yet. This must be called before accessing the method caller, response handler,
+     * parameters, binders, result cache or usage of this command directly.
+     */
+    void build() {
+        if (builder == null) return;
+        synchronized (this) {
+            Runnable builder = this.builder;
+            // the builder itself may ask for the parts it is still building
+            if (builder == null || building) return;
+            building = true;
+            try {
+                builder.run();
+                this.builder = null;
+            } finally {
+                building = false;
+            }
+        }
+    }
 
     @Override public @NotNull String getName() {
         return name;
@@ -47,6 +81,7 @@ class CommandExecutable implements ExecutableCommand {
     }
 
     @Override public @NotNull String getUsage() {
+        build();
         return usage;
     }
 
@@ -63,10 +98,12 @@ class CommandExecutable implements ExecutableCommand {
     }
 
     @Override public @NotNull @Unmodifiable List<CommandParameter> getParameters() {
+        build();
         return parameters;
     }
 
     @Override public @NotNull @Unmodifiable Map<Integer, CommandParameter> getValueParameters() {
+        build();
         return resolveableParameters;
     }
 
@@ -79,6 +116,7 @@ class CommandExecutable implements ExecutableCommand {
     }
 
     @Override public @NotNull <T> ResponseHandler<T> getResponseHandler() {
+        build();
         return responseHandler;
     }
 
@@ -86,6 +124,10 @@ class CommandExecutable implements ExecutableCommand {
         return secret;
     }
 
+    @Override public boolean isAsync() {
+        return async;
+    }
+
     @Override public <A extends Annotation> A getAnnotation(@NotNull Class<A> annotation) {
         return reader.get(annotation);
     }
@@ -2,6 +2,7 @@ package revxrsal.commands.core;
 
 import lombok.SneakyThrows;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import revxrsal.commands.CommandHandler;
 import revxrsal.commands.annotation.Optional;
 import revxrsal.commands.annotation.*;
@@ -9,8 +10,10 @@ import revxrsal.commands.command.ArgumentStack;
 import revxrsal.commands.command.CommandParameter;
 import revxrsal.commands.command.CommandPermission;
 import revxrsal.commands.command.ExecutableCommand;
+import revxrsal.commands.core.reflect.GeneratedContainer;
+import revxrsal.commands.core.reflect.MethodCaller;
 import revxrsal.commands.core.reflect.MethodCaller.BoundMethodCaller;
-import revxrsal.commands.orphan.OrphanCommand;
+import revxrsal.commands.core.reflect.MethodCallerFactory;
 import revxrsal.commands.orphan.OrphanRegistry;
 import revxrsal.commands.process.ParameterResolver;
 import revxrsal.commands.process.ParameterValidator;
@@ -28,8 +31,10 @@ import java.util.*;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static java.util.Collections.addAll;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static revxrsal.commands.util.Collections.listOf;
 import static revxrsal.commands.util.Strings.getName;
@@ -40,89 +45,222 @@ final class CommandParser {
     static final ResponseHandler<?> VOID_HANDLER = (response, actor, command) -> {};
     private static final AtomicInteger COMMAND_ID = new AtomicInteger();
 
+    /**
+     * The number of methods from which containers are parsed in parallel, when
+     * the handler {@link CommandHandler#parseCommandsInParallel() allows it}
+     */
+    private static final int PARALLEL_THRESHOLD = 32;
+
     private CommandParser() {}
 
-    public static void parse(@NotNull BaseCommandHandler handler, @NotNull OrphanRegistry orphan) {
-        OrphanCommand instance = orphan.getHandler();
-        Class<?> type = instance.getClass();
+    /**
+     * Parses the given command containers, and merges their commands into the handler.
+     * <p>
+     * This reads the paths of all the commands first, and fails before merging any
+     * of them if any path is already taken. The commands are then merged into their
+     * categories, in the order of the containers and their methods, before they are
+     * built, so that their parents and IDs are available to the factories of their
+     * parameters.
+     * <p>
+     * When the handler {@link CommandHandler#parseCommandsInParallel() allows it} and
+     * there are enough methods, the commands are read and built in parallel, as
+     * every command builds its own parameters.
+     *
+     * @param handler  The command handler
+     * @param commands The containers, which are either instances, classes or orphan registries.
+     */
+    public static void parse(@NotNull BaseCommandHandler handler, @NotNull List<Object> commands) {
+        List<ContainerMethod> methods = new ArrayList<>();
+        for (Object command : commands) {
+            // for orphans, we pass the type of the orphan handler, but pass the object as the orphan registry
+            Class<?> container = command instanceof OrphanRegistry ? ((OrphanRegistry) command).getHandler().getClass()
+                    : command instanceof Class ? (Class<?>) command : command.getClass();
+            GeneratedContainer generated = GeneratedContainer.of(container);
+            List<Method> containerMethods = generated == null ? new ArrayList<>(getAllMethods(container)) : generated.getMethods();
+            for (int index = 0; index < containerMethods.size(); index++)
+                methods.add(new ContainerMethod(container, command, generated, index, containerMethods.get(index)));
+        }
+        boolean parallel = handler.parallelParsing && methods.size() >= PARALLEL_THRESHOLD;
+        Stream<ContainerMethod> stream = parallel ? methods.parallelStream() : methods.stream();
+        List<List<CommandExecutable>> parsed = stream.map(method -> parse(handler, method)).collect(toList());
+
+        checkPaths(handler, parsed);
+        List<CommandExecutable> all = new ArrayList<>();
+        for (List<CommandExecutable> executables : parsed) {
+            place(handler, executables);
+            all.addAll(executables);
+        }
+        if (!handler.lazyCommands)
+            (parallel ? all.parallelStream() : all.stream()).forEach(CommandExecutable::build);
 
-        // we pass the type of the orphan handler, but pass the object as the orphan registry
-        parse(handler, type, orphan);
+        Map<CommandPath, CommandExecutable> subactions = new HashMap<>();
+        for (int i = 0; i < methods.size(); i++) {
+            if (i > 0 && methods.get(i).boundTarget != methods.get(i - 1).boundTarget)
+                linkSubactions(handler, subactions);
+            merge(handler, parsed.get(i), subactions);
+        }
+        linkSubactions(handler, subactions);
     }
 
-    public static void parse(@NotNull BaseCommandHandler handler, @NotNull Object boundTarget) {
-        Class<?> type = boundTarget instanceof Class ? (Class<?>) boundTarget : boundTarget.getClass();
-        parse(handler, type, boundTarget);
+    /**
+     * Reads the commands of the given method, one for each of its paths. This does
+     * not touch the categories and commands of the handler, and leaves building
+     * the rest of the commands to their {@link CommandExecutable#builder builders}.
+     *
+     * @return The commands, or an empty list if the method is not a command.
+     */
+    @SneakyThrows
+    private static List<CommandExecutable> parse(@NotNull BaseCommandHandler handler, @NotNull ContainerMethod containerMethod) {
+        Method method = containerMethod.method;
+        Object boundTarget = containerMethod.boundTarget;
+        GeneratedContainer generated = containerMethod.generated;
+        AnnotationReader reader = AnnotationReader.create(handler, method);
+        Object invokeTarget = boundTarget;
+        if (reader.shouldDismiss()) return Collections.emptyList();
+        if (boundTarget instanceof OrphanRegistry) {
+            insertCommandPath(handler, (OrphanRegistry) boundTarget, reader);
+            invokeTarget = ((OrphanRegistry) invokeTarget).getHandler();
+        }
+        reader.distributeAnnotations(handler);
+        List<CommandPath> paths = getCommandPath(containerMethod.container, method, reader);
+        // lazily built commands create their callers when they are built
+        BoundMethodCaller caller = handler.lazyCommands ? null
+                : getMethodCaller(handler, generated, containerMethod.index, method).bindTo(invokeTarget);
+        Object target = invokeTarget;
+        List<CommandExecutable> executables = new ArrayList<>(paths.size());
+        for (CommandPath path : paths) {
+            CommandExecutable executable = new CommandExecutable();
+            executable.name = path.getLast();
+            executable.handler = handler;
+            executable.description = reader.get(Description.class, Description::value);
+            executable.path = path;
+            executable.method = method;
+            executable.reader = reader;
+            executable.secret = reader.contains(SecretCommand.class);
+            executable.async = reader.contains(Async.class);
+            executable.methodCaller = caller;
+            executable.builder = () -> build(handler, containerMethod, target, executable);
+            executables.add(executable);
+        }
+        return executables;
     }
 
+    /**
+     * Builds the method caller (if it is not created yet), response handler,
+     * parameters and usage of a command
+     */
     @SneakyThrows
-    public static void parse(@NotNull BaseCommandHandler handler, @NotNull Class<?> container, @NotNull Object boundTarget) {
+    private static void build(@NotNull BaseCommandHandler handler,
+                              @NotNull ContainerMethod containerMethod,
+                              Object invokeTarget,
+                              @NotNull CommandExecutable executable) {
+        Method method = containerMethod.method;
+        GeneratedContainer generated = containerMethod.generated;
+        AnnotationReader reader = executable.reader;
+        if (executable.methodCaller == null)
+            executable.methodCaller = getMethodCaller(handler, generated, containerMethod.index, method).bindTo(invokeTarget);
+        String[] parameterNames = generated == null ? null : generated.getParameterNames(containerMethod.index);
+        executable.responseHandler = getResponseHandler(handler, method.getGenericReturnType());
+        executable.parameters = getParameters(handler, method, parameterNames, executable);
+        executable.binders = ParameterBinder.compile(executable.parameters);
+        executable.resultCache = ResultCache.create(reader.get(CacheResult.class), executable.parameters);
+        executable.resolveableParameters = executable.parameters.stream()
+                .filter(c -> c.getCommandIndex() != -1)
+                .collect(toMap(CommandParameter::getCommandIndex, c -> c));
+        executable.usage = reader.get(Usage.class, Usage::value, () -> generateUsage(executable));
+    }
+
+    /**
+     * Ensures that none of the given commands take a path of an existing
+     * command or of each other
+     */
+    private static void checkPaths(@NotNull BaseCommandHandler handler, @NotNull List<List<CommandExecutable>> parsed) {
+        Set<CommandPath> paths = new HashSet<>();
+        for (List<CommandExecutable> executables : parsed) {
+            for (CommandExecutable executable : executables) {
+                if (executable.reader.contains(Default.class)) continue;
+                CommandPath path = executable.path;
+                if (handler.executables.containsKey(path) || !paths.add(path))
+                    throw new IllegalStateException("A command with path '" + path.toRealString() + "' already exists!");
+            }
+        }
+    }
+
+    /**
+     * Places the commands of one method into the categories of the handler, and
+     * assigns their parents and ID
+     */
+    private static void place(@NotNull BaseCommandHandler handler, @NotNull List<CommandExecutable> executables) {
+        if (executables.isEmpty()) return;
         Map<CommandPath, BaseCommandCategory> categories = handler.categories;
-        Map<CommandPath, CommandExecutable> subactions = new HashMap<>();
-        for (Method method : getAllMethods(container)) {
-            AnnotationReader reader = AnnotationReader.create(handler, method);
-            Object invokeTarget = boundTarget;
-            if (reader.shouldDismiss()) continue;
-            if (boundTarget instanceof OrphanRegistry) {
-                insertCommandPath((OrphanRegistry) boundTarget, reader);
-                invokeTarget = ((OrphanRegistry) invokeTarget).getHandler();
+        int id = COMMAND_ID.getAndIncrement();
+        for (CommandExecutable executable : executables) {
+            CommandPath path = executable.path;
+            boolean isDefault = executable.reader.contains(Default.class);
+            for (BaseCommandCategory category : getCategories(handler, isDefault, path)) {
+                categories.putIfAbsent(category.path, category);
             }
-            reader.distributeAnnotations();
-            reader.replaceAnnotations(handler);
-            List<CommandPath> paths = getCommandPath(container, method, reader);
-            BoundMethodCaller caller = handler.getMethodCallerFactory().createFor(method).bindTo(invokeTarget);
-            int id = COMMAND_ID.getAndIncrement();
-            boolean isDefault = reader.contains(Default.class);
-            paths.forEach(path -> {
-                for (BaseCommandCategory category : getCategories(handler, isDefault, path)) {
-                    categories.putIfAbsent(category.path, category);
-                }
-                CommandExecutable executable = new CommandExecutable();
-                if (!isDefault) categories.remove(path); // prevent duplication.
-                executable.name = path.getLast();
-                executable.id = id;
-                executable.handler = handler;
-                executable.description = reader.get(Description.class, Description::value);
-                executable.path = path;
-                executable.method = method;
-                executable.reader = reader;
-                executable.secret = reader.contains(SecretCommand.class);
-                executable.methodCaller = caller;
-                if (isDefault)
-                    executable.parent(categories.get(path));
-                else
-                    executable.parent(categories.get(path.getCategoryPath()));
-                executable.responseHandler = getResponseHandler(handler, method.getGenericReturnType());
-                executable.parameters = getParameters(handler, method, executable);
-                executable.resolveableParameters = executable.parameters.stream()
-                        .filter(c -> c.getCommandIndex() != -1)
-                        .collect(toMap(CommandParameter::getCommandIndex, c -> c));
-                executable.usage = reader.get(Usage.class, Usage::value, () -> generateUsage(executable));
-                if (reader.contains(Default.class))
-                    subactions.put(path, executable);
-                else
-                    putOrError(handler.executables, path, executable, "A command with path '" + path.toRealString() + "' already exists!");
-            });
+            if (!isDefault) categories.remove(path); // prevent duplication.
+            executable.id = id;
+            if (isDefault)
+                executable.parent(categories.get(path));
+            else
+                executable.parent(categories.get(path.getCategoryPath()));
         }
+    }
 
+    /**
+     * Merges the built commands of one method into the commands of the handler
+     */
+    private static void merge(@NotNull BaseCommandHandler handler,
+                              @NotNull List<CommandExecutable> executables,
+                              @NotNull Map<CommandPath, CommandExecutable> subactions) {
+        for (CommandExecutable executable : executables) {
+            CommandPath path = executable.path;
+            executable.conditions = handler.compileConditions(executable);
+            if (executable.reader.contains(Default.class))
+                subactions.put(path, executable);
+            else
+                handler.executables.put(path, executable);
+        }
+    }
+
+    /**
+     * Sets the default actions of the categories of one container
+     */
+    private static void linkSubactions(@NotNull BaseCommandHandler handler, @NotNull Map<CommandPath, CommandExecutable> subactions) {
         subactions.forEach((path, subaction) -> {
-            BaseCommandCategory cat = categories.get(path);
+            BaseCommandCategory cat = handler.categories.get(path);
             if (cat != null) { // should never be null but let's just do that
                 cat.defaultAction = subaction;
             }
         });
+        subactions.clear();
     }
 
-    private static void insertCommandPath(OrphanRegistry boundTarget, AnnotationReader reader) {
+    private static void insertCommandPath(BaseCommandHandler handler, OrphanRegistry boundTarget, AnnotationReader reader) {
         List<CommandPath> paths = boundTarget.getParentPaths();
         String[] pathsArray = paths.stream().map(CommandPath::toRealString).toArray(String[]::new);
-        reader.add(new Command() {
+        reader.add(handler, new Command() {
             @Override public Class<? extends Annotation> annotationType() {return Command.class;}
 
             @Override public String[] value() {return pathsArray;}
         });
     }
 
+    private static MethodCaller getMethodCaller(BaseCommandHandler handler,
+                                                @Nullable GeneratedContainer generated,
+                                                int index,
+                                                Method method) throws Throwable {
+        MethodCallerFactory factory = handler.getMethodCallerFactory();
+        // respect custom factories over the generated callers
+        if (generated != null && factory == MethodCallerFactory.defaultFactory()) {
+            MethodCaller caller = generated.getCaller(index);
+            if (caller != null) return caller;
+        }
+        return factory.createFor(method);
+    }
+
     private static Set<Method> getAllMethods(Class<?> c) {
         Set<Method> methods = new HashSet<>();
         Class<?> current = c;
@@ -206,6 +344,7 @@ final class CommandParser {
 
     private static List<CommandParameter> getParameters(@NotNull BaseCommandHandler handler,
                                                         @NotNull Method method,
+                                                        @Nullable String[] parameterNames,
                                                         @NotNull CommandExecutable parent) {
         List<CommandParameter> parameters = new ArrayList<>();
         Parameter[] methodParameters = method.getParameters();
@@ -218,7 +357,7 @@ final class CommandParser {
             );
             String[] defaultValue = paramAnns.get(Default.class, Default::value);
             BaseCommandParameter param = new BaseCommandParameter(
-                    getName(parameter),
+                    parameterNames == null || parameter.isNamePresent() ? getName(parameter) : getName(parameter, parameterNames[i]),
                     paramAnns.get(Description.class, Description::value),
                     i,
                     defaultValue == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(defaultValue)),
@@ -315,11 +454,23 @@ final class CommandParser {
         return classes;
     }
 
-    private static <K, V> void putOrError(Map<K, V> map, K key, V value, String err) {
-        if (map.containsKey(key)) {
-            throw new IllegalStateException(err);
+    /**
+     * A method of a container that is being registered
+     */
+    private static final class ContainerMethod {
+
+        private final Class<?> container;
+        private final Object boundTarget;
+        private final @Nullable GeneratedContainer generated;
+        private final int index;
+        private final Method method;
+
+        ContainerMethod(Class<?> container, Object boundTarget, @Nullable GeneratedContainer generated, int index, Method method) {
+            this.container = container;
+            this.boundTarget = boundTarget;
+            this.generated = generated;
+            this.index = index;
+            this.method = method;
         }
-        map.put(key, value);
     }
-
 }
@@ -0,0 +1,108 @@
+package revxrsal.commands.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+import revxrsal.commands.command.CommandCategory;
+import revxrsal.commands.command.ExecutableCommand;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of all the commands and categories registered in
+ * a {@link BaseCommandHandler}.
+ * <p>
+ * Registration and unregistration mutate the handler's own maps, and then publish
+ * a new snapshot once the whole batch is done. This allows commands to be dispatched,
+ * completed and looked up concurrently from any thread without locking, and without
+ * ever observing a half-registered batch.
+ * <p>
+ * Note that the snapshot only copies the maps of commands and categories. The
+ * {@link BaseCommandCategory} instances are shared between snapshots. Publishing a
+ * new snapshot replaces their published children in place, and their default actions
+ * are set as soon as they are registered, so categories that were obtained from an
+ * older snapshot reflect the newest one.
+ */
+final class CommandRegistry {
+
+    /**
+     * A registry that has no commands
+     */
+    static final CommandRegistry EMPTY = new CommandRegistry(CommandTrie.EMPTY, Collections.emptyMap(), Collections.emptyMap());
+
+    /**
+     * The routing trie of the commands
+     */
+    final CommandTrie trie;
+
+    /**
+     * All the registered commands
+     */
+    final @Unmodifiable Map<CommandPath, ExecutableCommand> commands;
+
+    /**
+     * All the registered categories
+     */
+    final @Unmodifiable Map<CommandPath, CommandCategory> categories;
+
+    private CommandRegistry(CommandTrie trie,
+                            Map<CommandPath, ExecutableCommand> commands,
+                            Map<CommandPath, CommandCategory> categories) {
+        this.trie = trie;
+        this.commands = commands;
+        this.categories = categories;
+    }
+
+    /**
+     * Creates a snapshot of the given commands and categories. This will
+     * also publish the children of every category.
+     *
+     * @param executables The registered commands
+     * @param categories  The registered categories
+     * @return The new snapshot
+     */
+    static @NotNull CommandRegistry snapshot(@NotNull Map<CommandPath, CommandExecutable> executables,
+                                             @NotNull Map<CommandPath, BaseCommandCategory> categories) {
+        if (executables.isEmpty() && categories.isEmpty())
+            return EMPTY;
+        for (BaseCommandCategory category : categories.values())
+            category.publish();
+        return new CommandRegistry(
+                CommandTrie.compile(executables, categories),
+                Collections.unmodifiableMap(new HashMap<>(executables)),
+                Collections.unmodifiableMap(new HashMap<>(categories))
+        );
+    }
+
+    /**
+     * Creates a copy of this snapshot without the commands and categories of the
+     * given paths. Unlike {@link #snapshot(Map, Map)}, this does not publish anything
+     * that was registered since this snapshot was created.
+     *
+     * @param paths The paths of the removed commands and categories
+     * @return The new snapshot
+     */
+    @NotNull CommandRegistry without(@NotNull Set<CommandPath> paths) {
+        Map<CommandPath, CommandExecutable> executables = new HashMap<>();
+        for (Map.Entry<CommandPath, ExecutableCommand> entry : commands.entrySet()) {
+            if (!paths.contains(entry.getKey()))
+                executables.put(entry.getKey(), (CommandExecutable) entry.getValue());
+        }
+        Map<CommandPath, BaseCommandCategory> categories = new HashMap<>();
+        for (Map.Entry<CommandPath, CommandCategory> entry : this.categories.entrySet()) {
+            if (!paths.contains(entry.getKey()))
+                categories.put(entry.getKey(), (BaseCommandCategory) entry.getValue());
+        }
+        if (executables.isEmpty() && categories.isEmpty())
+            return EMPTY;
+        for (BaseCommandCategory category : categories.values())
+            category.unpublish(paths);
+        return new CommandRegistry(
+                CommandTrie.compile(executables, categories),
+                Collections.unmodifiableMap(executables),
+                Collections.unmodifiableMap(categories)
+        );
+    }
+}
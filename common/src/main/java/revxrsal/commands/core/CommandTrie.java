@@ -0,0 +1,149 @@
+package revxrsal.commands.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * An immutable routing tree of all the commands and categories that are registered
+ * in a {@link BaseCommandHandler}, where each node represents a single segment
+ * of a {@link CommandPath}.
+ * <p>
+ * This is compiled once registration completes, and allows the dispatcher to walk
+ * the input in a single pass, without having to build and re-hash {@link CommandPath}s
+ * for every argument.
+ */
+final class CommandTrie {
+
+    /**
+     * A trie that has no commands
+     */
+    static final CommandTrie EMPTY = new CommandTrie(new Node(Collections.emptyMap(), null, null));
+
+    /**
+     * The root node. This node does not represent any segment, and only
+     * holds the root commands and categories.
+     */
+    final Node root;
+
+    private CommandTrie(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Compiles a new trie from the given commands and categories
+     *
+     * @param executables The registered commands
+     * @param categories  The registered categories
+     * @return The compiled trie
+     */
+    static @NotNull CommandTrie compile(@NotNull Map<CommandPath, CommandExecutable> executables,
+                                        @NotNull Map<CommandPath, BaseCommandCategory> categories) {
+        if (executables.isEmpty() && categories.isEmpty())
+            return EMPTY;
+        NodeBuilder root = new NodeBuilder();
+        for (BaseCommandCategory category : categories.values()) {
+            root.walk(category.path).category = category;
+        }
+        for (CommandExecutable executable : executables.values()) {
+            root.walk(executable.path).executable = executable;
+        }
+        return new CommandTrie(root.build());
+    }
+
+    /**
+     * Returns the node at the given path, or null if no such node exists.
+     *
+     * @param path The path segments to walk
+     * @return The node at the given path
+     */
+    @Nullable Node find(@NotNull Iterable<String> path) {
+        Node node = root;
+        for (String segment : path) {
+            node = node.child(segment);
+            if (node == null) return null;
+        }
+        return node == root ? null : node;
+    }
+
+    /**
+     * Represents a single segment in the routing tree.
+     */
+    static final class Node {
+
+        private final Map<String, Node> children;
+
+        /**
+         * The command that lives at this exact path
+         */
+        final @Nullable CommandExecutable executable;
+
+        /**
+         * The category that lives at this exact path
+         */
+        final @Nullable BaseCommandCategory category;
+
+        /**
+         * The default action of {@link #category}, captured when this node
+         * was compiled.
+         */
+        final @Nullable CommandExecutable defaultAction;
+
+        private Node(Map<String, Node> children,
+                     @Nullable CommandExecutable executable,
+                     @Nullable BaseCommandCategory category) {
+            this.children = children;
+            this.executable = executable;
+            this.category = category;
+            this.defaultAction = category == null ? null : category.defaultAction;
+        }
+
+        /**
+         * Returns the child node that matches the given segment. Segments
+         * are case-insensitive.
+         *
+         * @param segment The segment to look for
+         * @return The child node, or null if not found.
+         */
+        @Nullable Node child(@NotNull String segment) {
+            return children.get(segment.toLowerCase());
+        }
+
+        /**
+         * Visits this node and all the nodes beneath it
+         *
+         * @param visitor The node visitor
+         */
+        void forEach(@NotNull Consumer<Node> visitor) {
+            visitor.accept(this);
+            for (Node child : children.values())
+                child.forEach(visitor);
+        }
+    }
+
+    private static final class NodeBuilder {
+
+        private final Map<String, NodeBuilder> children = new HashMap<>();
+        private CommandExecutable executable;
+        private BaseCommandCategory category;
+
+        NodeBuilder walk(CommandPath path) {
+            NodeBuilder node = this;
+            for (String segment : path)
+                node = node.children.computeIfAbsent(segment, s -> new NodeBuilder());
+            return node;
+        }
+
+        Node build() {
+            if (children.isEmpty())
+                return new Node(Collections.emptyMap(), executable, category);
+            Map<String, Node> built = new HashMap<>(children.size() * 2);
+            children.forEach((segment, child) -> built.put(segment, child.build()));
+            return new Node(Collections.unmodifiableMap(built), executable, category);
+        }
+    }
+}
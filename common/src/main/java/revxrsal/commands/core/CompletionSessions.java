@@ -0,0 +1,94 @@
+package revxrsal.commands.core;
+
+import org.jetbrains.annotations.NotNull;
+import revxrsal.commands.command.ArgumentStack;
+import revxrsal.commands.exception.ArgumentParseException;
+import revxrsal.commands.util.tokenize.QuotedStringTokenizer;
+import revxrsal.commands.util.tokenize.TokenSlices;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the tokens of the last tab completion of every actor, so that a completion
+ * whose input extends the previous one (as it does with every typed character) only
+ * has to tokenize the input from the start of the previous last token.
+ * <p>
+ * Inputs that do not extend the previous one are tokenized from scratch. Only a
+ * bounded number of sessions is kept, evicting the least recently used ones.
+ * <p>
+ * This only applies to the {@link revxrsal.commands.command.ArgumentParser#QUOTES} grammar.
+ */
+final class CompletionSessions {
+
+    /**
+     * The maximum number of actors whose sessions are kept
+     */
+    private static final int MAX_SESSIONS = 256;
+
+    private final Map<UUID, Session> sessions = new LinkedHashMap<UUID, Session>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<UUID, Session> eldest) {
+            return size() > MAX_SESSIONS;
+        }
+    };
+
+    /**
+     * Parses the completion input of the given actor
+     *
+     * @param actor      The actor unique ID
+     * @param input      The completion input. Must not be empty.
+     * @param arrayStack Whether to create an {@link ArrayArgumentStack}
+     * @return The argument stack
+     */
+    ArgumentStack parse(@NotNull UUID actor, @NotNull String input, boolean arrayStack) throws ArgumentParseException {
+        Session previous;
+        synchronized (sessions) {
+            previous = sessions.get(actor);
+        }
+        Session session;
+        try {
+            session = previous != null && input.startsWith(previous.input) ? previous.extend(input) : new Session(input);
+        } catch (ArgumentParseException e) {
+            synchronized (sessions) {
+                sessions.remove(actor);
+            }
+            throw e;
+        }
+        synchronized (sessions) {
+            sessions.put(actor, session);
+        }
+        return arrayStack ? new ArrayArgumentStack(session.values) : new LinkedArgumentStack(session.values);
+    }
+
+    /**
+     * The tokens of a completion input. Sessions are never modified once created.
+     */
+    private static final class Session {
+
+        private final String input;
+        private final TokenSlices tokens;
+        private final String[] values;
+
+        Session(String input) throws ArgumentParseException {
+            this(input, QuotedStringTokenizer.slice(input), null);
+        }
+
+        private Session(String input, TokenSlices tokens, String[] previous) {
+            this.input = input;
+            this.tokens = tokens;
+            int kept = previous == null ? 0 : previous.length - 1;
+            // tokens before the last one of the previous input did not change, so we reuse their strings
+            values = previous == null ? new String[tokens.size()] : Arrays.copyOf(previous, tokens.size());
+            for (int i = kept; i < values.length; i++)
+                values[i] = tokens.get(i);
+        }
+
+        Session extend(String input) throws ArgumentParseException {
+            if (input.length() == this.input.length())
+                return this;
+            return new Session(input, QuotedStringTokenizer.slice(input, tokens), values);
+        }
+    }
+}
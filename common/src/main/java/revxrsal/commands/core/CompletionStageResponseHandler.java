@@ -7,9 +7,14 @@ import revxrsal.commands.command.ExecutableCommand;
 import revxrsal.commands.process.ResponseHandler;
 
 import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
 
 /**
  * A response handler that appropriately handles return types of {@link CompletionStage}s.
+ * <p>
+ * Results of {@link revxrsal.commands.annotation.Async} commands are handled on the
+ * {@link CommandHandler#getAsyncExecutor() async executor}, rather than on whichever
+ * thread completed the stage.
  */
 final class CompletionStageResponseHandler implements ResponseHandler<CompletionStage<Object>> {
 
@@ -23,7 +28,7 @@ final class CompletionStageResponseHandler implements ResponseHandler<Completion
 
     @Override
     public void handleResponse(CompletionStage<Object> response, @NotNull CommandActor actor, @NotNull ExecutableCommand command) {
-        response.whenComplete((value, exception) -> {
+        BiConsumer<Object, Throwable> action = (value, exception) -> {
             if (exception != null) {
                 handler.getExceptionHandler().handleException(exception, actor);
             } else {
@@ -33,6 +38,10 @@ final class CompletionStageResponseHandler implements ResponseHandler<Completion
                     handler.getExceptionHandler().handleException(throwable, actor);
                 }
             }
-        });
+        };
+        if (command.isAsync())
+            response.whenCompleteAsync(action, handler.getAsyncExecutor());
+        else
+            response.whenComplete(action);
     }
 }
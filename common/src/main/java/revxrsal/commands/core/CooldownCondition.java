@@ -22,6 +22,10 @@ enum CooldownCondition implements CommandCondition {
     private static final ScheduledExecutorService COOLDOWN_POOL = Executors.newSingleThreadScheduledExecutor();
     private final Map<UUID, Map<Integer, Long>> cooldowns = new ConcurrentHashMap<>();
 
+    @Override public boolean appliesTo(@NotNull ExecutableCommand command) {
+        return command.hasAnnotation(Cooldown.class);
+    }
+
     @Override public void test(@NotNull CommandActor actor, @NotNull ExecutableCommand command, @NotNull @Unmodifiable List<String> arguments) {
         Cooldown cooldown = command.getAnnotation(Cooldown.class);
         if (cooldown == null || cooldown.value() == 0) return;
@@ -27,8 +27,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import revxrsal.commands.command.ArgumentStack;
 import revxrsal.commands.command.CommandParameter;
-import revxrsal.commands.core.BaseCommandDispatcher.ValueContextR;
 import revxrsal.commands.process.ParameterResolver;
+import revxrsal.commands.process.ProbingValueResolver;
 import revxrsal.commands.process.ValueResolver;
 import revxrsal.commands.process.ValueResolverFactory;
 import revxrsal.commands.util.Either;
@@ -47,17 +47,37 @@ enum EitherValueResolverFactory implements ValueResolverFactory {
         EitherParameter first = generate(parameter, types[0]);
         EitherParameter second = generate(parameter, types[1]);
 
+        ProbingValueResolver<?> probing = probing(first);
+        if (probing != null) {
+            // the first type can be probed without copying the arguments and throwing
+            return context -> {
+                Object value = probing.tryResolve(context);
+                if (value != ProbingValueResolver.NO_MATCH)
+                    return Either.first(value);
+                return Either.second(second.getResolver().resolve(context));
+            };
+        }
         return context -> {
-            ArgumentStack original = context.arguments().copy();
+            ArgumentStack arguments = context.arguments();
+            ArgumentStack original = arguments.copy();
             try {
                 return Either.first(first.getResolver().resolve(context));
             } catch (Throwable t) {
-                ((ValueContextR) context).argumentStack = original;
+                // restore in place, as the stack is shared with the parameters that follow
+                arguments.clear();
+                arguments.addAll(original);
                 return Either.second(second.getResolver().resolve(context));
             }
         };
     }
 
+    private static @Nullable ProbingValueResolver<?> probing(EitherParameter parameter) {
+        ParameterResolver<?> resolver = parameter.getResolver();
+        if (!(resolver instanceof Resolver)) return null;
+        ValueResolver<?> valueResolver = ((Resolver) resolver).valueResolver;
+        return valueResolver instanceof ProbingValueResolver ? (ProbingValueResolver<?>) valueResolver : null;
+    }
+
     private static EitherParameter generate(CommandParameter parameter, Type type) {
         EitherParameter either = new EitherParameter(parameter, type);
         ParameterResolver<Object> resolver = ((BaseCommandHandler) parameter.getCommandHandler()).getResolver(either);
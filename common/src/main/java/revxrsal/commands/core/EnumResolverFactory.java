@@ -3,7 +3,9 @@ package revxrsal.commands.core;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import revxrsal.commands.command.CommandParameter;
+import revxrsal.commands.process.ProbingValueResolver;
 import revxrsal.commands.process.ValueResolver;
+import revxrsal.commands.process.ValueResolver.ValueResolverContext;
 import revxrsal.commands.process.ValueResolverFactory;
 import revxrsal.commands.annotation.CaseSensitive;
 import revxrsal.commands.exception.EnumNotFoundException;
@@ -27,12 +29,23 @@ enum EnumResolverFactory implements ValueResolverFactory {
             else
                 values.put(enumConstant.name().toLowerCase(), enumConstant);
         }
-        return (ValueResolver<Enum<?>>) context -> {
-            String value = context.pop();
-            Enum<?> v = values.get(caseSensitive ? value : value.toLowerCase());
-            if (v == null)
-                throw new EnumNotFoundException(parameter, value);
-            return v;
+        return new ProbingValueResolver<Enum<?>>() {
+            @Override public Enum<?> resolve(@NotNull ValueResolverContext context) {
+                String value = context.pop();
+                Enum<?> v = values.get(caseSensitive ? value : value.toLowerCase());
+                if (v == null)
+                    throw new EnumNotFoundException(parameter, value);
+                return v;
+            }
+
+            @Override public Object tryResolve(@NotNull ValueResolverContext context) {
+                String value = context.arguments().peekFirst();
+                if (value == null) return NO_MATCH;
+                Enum<?> v = values.get(caseSensitive ? value : value.toLowerCase());
+                if (v == null) return NO_MATCH;
+                context.arguments().removeFirst();
+                return v;
+            }
         };
     }
 }
@@ -26,8 +26,8 @@ public final class LinkedArgumentStack extends LinkedList<String> implements Arg
 
     @Override public @NotNull String join(@NotNull String delimiter, int startIndex) {
         StringJoiner joiner = new StringJoiner(delimiter);
-        for (int i = startIndex; i < size(); i++)
-            joiner.add(get(i));
+        for (Iterator<String> iterator = listIterator(startIndex); iterator.hasNext(); )
+            joiner.add(iterator.next());
         return joiner.toString();
     }
 
@@ -0,0 +1,341 @@
+package revxrsal.commands.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.commands.annotation.Range;
+import revxrsal.commands.command.ArgumentStack;
+import revxrsal.commands.command.CommandActor;
+import revxrsal.commands.command.CommandParameter;
+import revxrsal.commands.exception.InvalidNumberException;
+import revxrsal.commands.exception.NumberNotInRangeException;
+import revxrsal.commands.process.ParameterResolver;
+import revxrsal.commands.process.ParameterValidator;
+import revxrsal.commands.process.ProbingValueResolver;
+import revxrsal.commands.process.ValueResolver;
+import revxrsal.commands.process.ValueResolver.ValueResolverContext;
+
+/**
+ * Parses the built-in numeric types.
+ * <p>
+ * Parameters that use the built-in numeric resolvers are parsed directly from the
+ * arguments by their binder, and their {@link Range} is checked against bounds that
+ * are read once when the command is registered, rather than through the
+ * {@link #RANGE_VALIDATOR}.
+ *
+ * @see #of(CommandParameter)
+ */
+final class NumericParser {
+
+    static final ValueResolver<Integer> INT = new NumberResolver<>(Kind.INT);
+    static final ValueResolver<Long> LONG = new NumberResolver<>(Kind.LONG);
+    static final ValueResolver<Short> SHORT = new NumberResolver<>(Kind.SHORT);
+    static final ValueResolver<Byte> BYTE = new NumberResolver<>(Kind.BYTE);
+    static final ValueResolver<Double> DOUBLE = new NumberResolver<>(Kind.DOUBLE);
+    static final ValueResolver<Float> FLOAT = new NumberResolver<>(Kind.FLOAT);
+
+    /**
+     * Returned by {@link #parseNegated(String, long, long)} when the input is
+     * invalid. All valid results are zero or negative.
+     */
+    private static final long INVALID = 1;
+
+    /**
+     * Validates the {@link Range} of numbers that are not parsed by a {@link NumericParser}
+     */
+    static final ParameterValidator<Number> RANGE_VALIDATOR = (value, parameter, actor) -> {
+        Range range = parameter.getAnnotation(Range.class);
+        if (range != null)
+            if (value.doubleValue() > range.max() || value.doubleValue() < range.min())
+                throw new NumberNotInRangeException(actor, parameter, value, range.min(), range.max());
+    };
+
+    /**
+     * A built-in number resolver
+     */
+    private static final class NumberResolver<T> implements ProbingValueResolver<T> {
+
+        private final Kind kind;
+
+        NumberResolver(Kind kind) {
+            this.kind = kind;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public T resolve(@NotNull ValueResolverContext context) {
+            switch (kind) {
+                case INT:
+                    return (T) (Integer) context.popInt();
+                case LONG:
+                    return (T) (Long) context.popLong();
+                case SHORT:
+                    return (T) (Short) context.popShort();
+                case BYTE:
+                    return (T) (Byte) context.popByte();
+                case DOUBLE:
+                    return (T) (Double) context.popDouble();
+                default:
+                    return (T) (Float) context.popFloat();
+            }
+        }
+
+        @Override public Object tryResolve(@NotNull ValueResolverContext context) {
+            String input = context.arguments().peekFirst();
+            if (input == null) return NO_MATCH;
+            Number value = tryParse(kind, input);
+            if (value == null) return NO_MATCH;
+            context.arguments().removeFirst();
+            return value;
+        }
+    }
+
+    private enum Kind {
+        INT(Integer.MIN_VALUE, Integer.MAX_VALUE),
+        LONG(Long.MIN_VALUE, Long.MAX_VALUE),
+        SHORT(Short.MIN_VALUE, Short.MAX_VALUE),
+        BYTE(Byte.MIN_VALUE, Byte.MAX_VALUE),
+        DOUBLE(0, 0),
+        FLOAT(0, 0);
+
+        private final long min, max;
+
+        Kind(long min, long max) {
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    private final Kind kind;
+    private final CommandParameter parameter;
+    private final boolean ranged;
+    private final double min, max;
+
+    private NumericParser(Kind kind, CommandParameter parameter) {
+        this.kind = kind;
+        this.parameter = parameter;
+        Range range = parameter.getAnnotation(Range.class);
+        ranged = range != null;
+        min = ranged ? range.min() : 0;
+        max = ranged ? range.max() : 0;
+    }
+
+    /**
+     * Returns the parser of the given parameter
+     *
+     * @param parameter The parameter
+     * @return The parser, or null if the parameter does not use a built-in
+     * numeric resolver.
+     */
+    static @Nullable NumericParser of(@NotNull CommandParameter parameter) {
+        ParameterResolver<?> resolver = parameter.getResolver();
+        if (!(resolver instanceof Resolver)) return null;
+        ValueResolver<?> valueResolver = ((Resolver) resolver).valueResolver;
+        if (!(valueResolver instanceof NumberResolver)) return null;
+        return new NumericParser(((NumberResolver<?>) valueResolver).kind, parameter);
+    }
+
+    /**
+     * Pops the first argument and parses it, checking its range
+     *
+     * @param actor     The command actor
+     * @param arguments The arguments to pop from
+     * @return The parsed number
+     */
+    Object pop(@NotNull CommandActor actor, @NotNull ArgumentStack arguments) {
+        String input = arguments.pop();
+        switch (kind) {
+            case DOUBLE: {
+                double value;
+                try {
+                    value = parseDouble(input);
+                } catch (NumberFormatException e) {
+                    throw new InvalidNumberException(parameter, input);
+                }
+                if (ranged && (value > max || value < min))
+                    throw new NumberNotInRangeException(actor, parameter, value, min, max);
+                return value;
+            }
+            case FLOAT: {
+                float value;
+                try {
+                    value = parseFloat(input);
+                } catch (NumberFormatException e) {
+                    throw new InvalidNumberException(parameter, input);
+                }
+                if (ranged && (value > max || value < min))
+                    throw new NumberNotInRangeException(actor, parameter, value, min, max);
+                return value;
+            }
+            default: {
+                long value;
+                try {
+                    value = parseLong(input, kind.min, kind.max);
+                } catch (NumberFormatException e) {
+                    throw new InvalidNumberException(parameter, input);
+                }
+                if (ranged && (value > max || value < min))
+                    throw new NumberNotInRangeException(actor, parameter, box(value), min, max);
+                return box(value);
+            }
+        }
+    }
+
+    private Number box(long value) {
+        switch (kind) {
+            case INT:
+                return (int) value;
+            case SHORT:
+                return (short) value;
+            case BYTE:
+                return (byte) value;
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Parses a double, which may also be a hexadecimal integer
+     *
+     * @param input The input to parse
+     * @return The parsed number
+     * @throws NumberFormatException If the input is not a valid number
+     */
+    static double parseDouble(@NotNull String input) {
+        return isHexInteger(input) ? parseLong(input, Long.MIN_VALUE, Long.MAX_VALUE) : Double.parseDouble(input);
+    }
+
+    /**
+     * Parses a float, which may also be a hexadecimal integer
+     *
+     * @param input The input to parse
+     * @return The parsed number
+     * @throws NumberFormatException If the input is not a valid number
+     */
+    static float parseFloat(@NotNull String input) {
+        return isHexInteger(input) ? parseLong(input, Long.MIN_VALUE, Long.MAX_VALUE) : Float.parseFloat(input);
+    }
+
+    /**
+     * Parses an integral number with an optional sign, in decimal or in
+     * hexadecimal (with a {@code 0x} prefix), without any allocations.
+     *
+     * @param input The input to parse
+     * @param min   The minimum value of the target type
+     * @param max   The maximum value of the target type
+     * @return The parsed number
+     * @throws NumberFormatException If the input is not a valid number, or is outside
+     *                               the given bounds.
+     */
+    static long parseLong(@NotNull String input, long min, long max) {
+        long negated = parseNegated(input, min, max);
+        if (negated == INVALID)
+            throw new NumberFormatException("For input string: \"" + input + "\"");
+        return input.charAt(0) == '-' ? negated : -negated;
+    }
+
+    /**
+     * Parses an integral number like {@link #parseLong(String, long, long)}, however,
+     * returns it negated if it is positive (as the negative range is larger), or
+     * {@link #INVALID} if the input is invalid.
+     */
+    private static long parseNegated(String input, long min, long max) {
+        int length = input.length();
+        int index = 0;
+        boolean negative = false;
+        if (length > 0 && (input.charAt(0) == '-' || input.charAt(0) == '+')) {
+            negative = input.charAt(0) == '-';
+            index++;
+        }
+        int radix = 10;
+        if (length - index > 2 && input.charAt(index) == '0' && (input.charAt(index + 1) == 'x' || input.charAt(index + 1) == 'X')) {
+            radix = 16;
+            index += 2;
+        }
+        if (index == length)
+            return INVALID;
+        // accumulate negatively, bounded by the range of the target type
+        long limit = negative ? min : -max;
+        long multiplyLimit = limit / radix;
+        long result = 0;
+        for (; index < length; index++) {
+            int digit = Character.digit(input.charAt(index), radix);
+            if (digit < 0 || result < multiplyLimit)
+                return INVALID;
+            result *= radix;
+            if (result < limit + digit)
+                return INVALID;
+            result -= digit;
+        }
+        return result;
+    }
+
+    /**
+     * Attempts to parse the given input into a number of the given kind,
+     * without throwing any exceptions
+     *
+     * @return The number, or null if the input is not a valid number
+     */
+    private static @Nullable Number tryParse(Kind kind, String input) {
+        switch (kind) {
+            case DOUBLE:
+            case FLOAT: {
+                if (isHexInteger(input)) {
+                    Number value = tryParse(Kind.LONG, input);
+                    if (value == null) return null;
+                    return kind == Kind.DOUBLE ? (Number) value.doubleValue() : (Number) value.floatValue();
+                }
+                if (!mayBeDecimal(input))
+                    return null;
+                try { // only reached by inputs that are very likely valid
+                    return kind == Kind.DOUBLE ? (Number) Double.parseDouble(input) : (Number) Float.parseFloat(input);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            default: {
+                long negated = parseNegated(input, kind.min, kind.max);
+                if (negated == INVALID) return null;
+                long value = input.charAt(0) == '-' ? negated : -negated;
+                switch (kind) {
+                    case INT:
+                        return (int) value;
+                    case SHORT:
+                        return (short) value;
+                    case BYTE:
+                        return (byte) value;
+                    default:
+                        return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether may the given input be a decimal number, i.e. it only
+     * contains digits, signs, a decimal point or exponents, or is one of the
+     * special values.
+     */
+    private static boolean mayBeDecimal(String input) {
+        if (input.isEmpty()) return false;
+        if (input.endsWith("NaN") || input.endsWith("Infinity"))
+            return true;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (!(c >= '0' && c <= '9') && c != '.' && c != '-' && c != '+' && c != 'e' && c != 'E'
+                    && c != 'f' && c != 'F' && c != 'd' && c != 'D')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether is the given input a hexadecimal integer, rather than a
+     * hexadecimal floating-point literal (such as {@code 0x1p3}) which
+     * {@link Double#parseDouble(String)} accepts.
+     */
+    private static boolean isHexInteger(String input) {
+        int index = input.startsWith("-") || input.startsWith("+") ? 1 : 0;
+        if (!input.startsWith("0x", index) && !input.startsWith("0X", index))
+            return false;
+        return input.indexOf('p') == -1 && input.indexOf('P') == -1 && input.indexOf('.') == -1;
+    }
+}
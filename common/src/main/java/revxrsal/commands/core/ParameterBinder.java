@@ -0,0 +1,427 @@
+package revxrsal.commands.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.commands.command.ArgumentStack;
+import revxrsal.commands.command.CommandActor;
+import revxrsal.commands.command.CommandParameter;
+import revxrsal.commands.core.BaseCommandDispatcher.ResolverContexts;
+import revxrsal.commands.exception.MissingArgumentException;
+import revxrsal.commands.process.ParameterResolver;
+import revxrsal.commands.process.ParameterValidator;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A single, pre-compiled step in binding the arguments of a {@link CommandExecutable}.
+ * <p>
+ * All the properties that decide how a parameter gets its value (whether it is a switch,
+ * a flag, a context parameter, etc.) are fixed once the parameters are parsed,
+ * so they are inspected once at registration to pick the appropriate binder. Dispatching
+ * then only has to run the compiled binders in order.
+ *
+ * @see #compile(List)
+ */
+abstract class ParameterBinder {
+
+    /**
+     * An empty binding plan
+     */
+    static final ParameterBinder[] NONE = new ParameterBinder[0];
+
+    /**
+     * Marks a flag or switch that was not found in the arguments
+     */
+    private static final Object ABSENT = new Object();
+
+    /**
+     * Marks a flag that was found, but has no value after it
+     */
+    private static final Object NO_VALUE = new Object();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final ParameterValidator<Object>[] NO_VALIDATORS = new ParameterValidator[0];
+
+    protected final CommandParameter parameter;
+    protected final int index;
+    private final ParameterValidator<Object>[] validators;
+
+    /**
+     * Creates a binder that does not bind a single parameter, and so has
+     * no {@link #parameter} nor {@link #index}
+     */
+    ParameterBinder() {
+        this.parameter = null;
+        this.index = -1;
+        this.validators = NO_VALIDATORS;
+    }
+
+    ParameterBinder(@NotNull CommandParameter parameter) {
+        this(parameter, false);
+    }
+
+    /**
+     * Creates a binder for the given parameter
+     *
+     * @param parameter    The parameter
+     * @param rangeChecked Whether the binder checks the {@link revxrsal.commands.annotation.Range}
+     *                     of the parameter itself
+     */
+    @SuppressWarnings("unchecked")
+    ParameterBinder(@NotNull CommandParameter parameter, boolean rangeChecked) {
+        this.parameter = parameter;
+        this.index = parameter.getMethodIndex();
+        this.validators = parameter.getValidators().stream()
+                .filter(v -> !rangeChecked || (Object) v != NumericParser.RANGE_VALIDATOR)
+                .toArray(ParameterValidator[]::new);
+    }
+
+    /**
+     * Binds the value of this parameter into the given array of values
+     *
+     * @param handler The command handler
+     * @param actor   The command actor
+     * @param args     The remaining command arguments
+     * @param contexts The source of resolver contexts
+     * @param values   The method arguments to bind into
+     */
+    abstract void bind(@NotNull BaseCommandHandler handler,
+                       @NotNull CommandActor actor,
+                       @NotNull ArgumentStack args,
+                       @NotNull ResolverContexts contexts,
+                       @NotNull Object[] values) throws Throwable;
+
+    /**
+     * Runs all the validators of this parameter against the given value, and
+     * sets the value in the arguments array.
+     *
+     * @param value  The resolved value
+     * @param actor  The command actor
+     * @param values The method arguments
+     */
+    protected final void validateAndSet(Object value, CommandActor actor, Object[] values) {
+        for (ParameterValidator<Object> v : validators) {
+            v.validate(value, parameter, actor);
+        }
+        values[index] = value;
+    }
+
+    /**
+     * Compiles the binding plan of the given parameters.
+     * <p>
+     * Switches, flags and {@link ArgumentStack} parameters are always bound first, since
+     * they are looked up anywhere in the arguments, and the remaining parameters are then
+     * bound in the order they are declared. All switches and flags are extracted from the
+     * arguments in a single pass (see {@link FlagScanner}).
+     *
+     * @param parameters The command parameters
+     * @return The binders, in the order they should be executed
+     */
+    static @NotNull ParameterBinder[] compile(@NotNull List<CommandParameter> parameters) {
+        if (parameters.isEmpty()) return NONE;
+        List<ParameterBinder> binders = new ArrayList<>(parameters.size());
+        List<CommandParameter> flags = new ArrayList<>();
+        for (CommandParameter parameter : parameters) {
+            if (ArgumentStack.class.isAssignableFrom(parameter.getType()))
+                binders.add(new ArgumentStackBinder(parameter));
+            else if (parameter.isSwitch() || parameter.isFlag())
+                flags.add(parameter);
+        }
+        if (!flags.isEmpty()) {
+            binders.add(new FlagScanner(flags));
+            for (CommandParameter parameter : flags) {
+                if (parameter.isFlag())
+                    binders.add(onMainThreadIfNeeded(new FlagBinder(parameter)));
+            }
+        }
+        for (CommandParameter parameter : parameters) {
+            if (ArgumentStack.class.isAssignableFrom(parameter.getType()) || parameter.isSwitch() || parameter.isFlag())
+                continue;
+            if (!parameter.getResolver().mutatesArguments())
+                binders.add(onMainThreadIfNeeded(new ContextBinder(parameter)));
+            else if (parameter.isOptional() || !parameter.getDefaultValue().isEmpty())
+                binders.add(onMainThreadIfNeeded(new DefaultBackedBinder(parameter)));
+            else
+                binders.add(onMainThreadIfNeeded(new ValueBinder(parameter)));
+        }
+        return binders.toArray(NONE);
+    }
+
+    private static ParameterBinder onMainThreadIfNeeded(ParameterBinder binder) {
+        // commands that are not @Async are already resolved on the thread that dispatches them
+        if (!binder.parameter.getDeclaringCommand().isAsync())
+            return binder;
+        ParameterResolver<?> resolver = binder.parameter.getResolver();
+        if (resolver instanceof Resolver && ((Resolver) resolver).mainThread)
+            return new MainThreadBinder(binder);
+        return binder;
+    }
+
+    /**
+     * Passes the argument stack as-is
+     */
+    private static final class ArgumentStackBinder extends ParameterBinder {
+
+        ArgumentStackBinder(CommandParameter parameter) {
+            super(parameter);
+        }
+
+        @Override void bind(@NotNull BaseCommandHandler handler, @NotNull CommandActor actor, @NotNull ArgumentStack args, @NotNull ResolverContexts contexts, @NotNull Object[] values) {
+            values[index] = args;
+        }
+    }
+
+    /**
+     * Binds a parameter from a {@link revxrsal.commands.process.ContextResolver}
+     */
+    private static final class ContextBinder extends ParameterBinder {
+
+        private final ParameterResolver<?> resolver;
+
+        ContextBinder(CommandParameter parameter) {
+            super(parameter);
+            resolver = parameter.getResolver();
+        }
+
+        @Override void bind(@NotNull BaseCommandHandler handler, @NotNull CommandActor actor, @NotNull ArgumentStack args, @NotNull ResolverContexts contexts, @NotNull Object[] values) {
+            parameter.checkPermission(actor);
+            Object value = resolver.resolve(contexts.context(parameter));
+            validateAndSet(value, actor, values);
+        }
+    }
+
+    /**
+     * Binds a required parameter that has no default value
+     */
+    private static class ValueBinder extends ParameterBinder {
+
+        protected final ParameterResolver<?> resolver;
+        private final @Nullable NumericParser number;
+
+        ValueBinder(CommandParameter parameter) {
+            this(parameter, NumericParser.of(parameter));
+        }
+
+        private ValueBinder(CommandParameter parameter, @Nullable NumericParser number) {
+            super(parameter, number != null);
+            resolver = parameter.getResolver();
+            this.number = number;
+        }
+
+        @Override void bind(@NotNull BaseCommandHandler handler, @NotNull CommandActor actor, @NotNull ArgumentStack args, @NotNull ResolverContexts contexts, @NotNull Object[] values) {
+            if (args.isEmpty())
+                throw new MissingArgumentException(parameter);
+            resolve(actor, args, contexts, values);
+        }
+
+        protected final void resolve(CommandActor actor, ArgumentStack args, ResolverContexts contexts, Object[] values) {
+            parameter.checkPermission(actor);
+            Object value = number != null
+                    ? number.pop(actor, args)
+                    : resolver.resolve(contexts.valueContext(parameter, args));
+            validateAndSet(value, actor, values);
+        }
+    }
+
+    /**
+     * Binds a parameter that is optional, or falls back to its default value
+     * when no arguments are left.
+     */
+    private static final class DefaultBackedBinder extends ValueBinder {
+
+        private final List<String> def;
+
+        DefaultBackedBinder(CommandParameter parameter) {
+            super(parameter);
+            def = parameter.getDefaultValue();
+        }
+
+        @Override void bind(@NotNull BaseCommandHandler handler, @NotNull CommandActor actor, @NotNull ArgumentStack args, @NotNull ResolverContexts contexts, @NotNull Object[] values) {
+            if (args.isEmpty()) {
+                if (def.isEmpty()) {
+                    values[index] = null;
+                    return;
+                }
+                args.addAll(def);
+            }
+            resolve(actor, args, contexts, values);
+        }
+    }
+
+    /**
+     * Extracts all the {@link revxrsal.commands.annotation.Switch switches} and
+     * {@link revxrsal.commands.annotation.Flag flags} of a command from the arguments
+     * in a single pass.
+     * <p>
+     * Switches are bound directly. The values of flags are left in the
+     * {@link ResolverContexts#flags() scratch array} of the contexts, for their {@link FlagBinder}
+     * to resolve, so that resolvers never see them among the resolved arguments. Only the first
+     * occurrence of every switch or flag is extracted, and a flag always takes the argument that
+     * follows it.
+     */
+    private static final class FlagScanner extends ParameterBinder {
+
+        private final String[] names;
+        private final boolean[] switches;
+        private final boolean[] defaultSwitches;
+        private final int[] indices;
+        private volatile Keys keys;
+
+        FlagScanner(List<CommandParameter> parameters) {
+            int size = parameters.size();
+            names = new String[size];
+            switches = new boolean[size];
+            defaultSwitches = new boolean[size];
+            indices = new int[size];
+            for (int i = 0; i < size; i++) {
+                CommandParameter parameter = parameters.get(i);
+                switches[i] = parameter.isSwitch();
+                names[i] = switches[i] ? parameter.getSwitchName() : parameter.getFlagName();
+                defaultSwitches[i] = switches[i] && parameter.getDefaultSwitch();
+                indices[i] = parameter.getMethodIndex();
+            }
+            BaseCommandHandler handler = (BaseCommandHandler) parameters.get(0).getCommandHandler();
+            keys = new Keys(handler.flagPrefix, handler.switchPrefix);
+        }
+
+        /**
+         * Returns the prefixed keys, computing them again if the prefixes
+         * have changed since they were last computed
+         */
+        private Keys keys(BaseCommandHandler handler) {
+            Keys keys = this.keys;
+            if (keys.flagPrefix != handler.flagPrefix || keys.switchPrefix != handler.switchPrefix)
+                this.keys = keys = new Keys(handler.flagPrefix, handler.switchPrefix);
+            return keys;
+        }
+
+        @Override void bind(@NotNull BaseCommandHandler handler, @NotNull CommandActor actor, @NotNull ArgumentStack args, @NotNull ResolverContexts contexts, @NotNull Object[] values) {
+            Keys keys = keys(handler);
+            Object[] flags = contexts.flags();
+            for (int index : indices)
+                flags[index] = ABSENT;
+            int remaining = indices.length;
+            for (ListIterator<String> iterator = args.listIterator(); remaining > 0 && iterator.hasNext(); ) {
+                String argument = iterator.next();
+                if (!argument.startsWith(keys.flagPrefix) && !argument.startsWith(keys.switchPrefix))
+                    continue;
+                Integer slot = keys.slots.get(argument);
+                if (slot == null || flags[indices[slot]] != ABSENT)
+                    continue;
+                iterator.remove();
+                remaining--;
+                if (switches[slot])
+                    flags[indices[slot]] = Boolean.TRUE;
+                else if (iterator.hasNext()) {
+                    flags[indices[slot]] = iterator.next();
+                    iterator.remove();
+                } else
+                    flags[indices[slot]] = NO_VALUE;
+            }
+            for (int i = 0; i < indices.length; i++) {
+                if (switches[i])
+                    values[indices[i]] = flags[indices[i]] == ABSENT ? defaultSwitches[i] : Boolean.TRUE;
+            }
+        }
+
+        /**
+         * The prefixed names of the switches and flags, mapped to their slots
+         */
+        private final class Keys {
+
+            private final String flagPrefix, switchPrefix;
+            private final Map<String, Integer> slots = new HashMap<>();
+
+            Keys(String flagPrefix, String switchPrefix) {
+                this.flagPrefix = flagPrefix;
+                this.switchPrefix = switchPrefix;
+                for (int i = 0; i < names.length; i++)
+                    slots.putIfAbsent((switches[i] ? switchPrefix : flagPrefix) + names[i], i);
+            }
+        }
+    }
+
+    /**
+     * Binds a {@link revxrsal.commands.annotation.Flag} parameter from the value
+     * extracted by the {@link FlagScanner}
+     */
+    private static final class FlagBinder extends ParameterBinder {
+
+        private final @Nullable String def;
+
+        FlagBinder(CommandParameter parameter) {
+            super(parameter);
+            List<String> def = parameter.getDefaultValue();
+            this.def = def.isEmpty() ? null : String.join(" ", def);
+        }
+
+        @Override void bind(@NotNull BaseCommandHandler handler, @NotNull CommandActor actor, @NotNull ArgumentStack args, @NotNull ResolverContexts contexts, @NotNull Object[] values) throws Throwable {
+            Object value = contexts.flags()[index];
+            ArgumentStack flagArguments;
+            if (value == ABSENT) { // flag isn't specified, use default value or throw an MPE.
+                if (!parameter.isOptional())
+                    throw new MissingArgumentException(parameter);
+                if (def == null) {
+                    validateAndSet(null, actor, values);
+                    return;
+                }
+                flagArguments = contexts.flagArguments(def); // put the actual value in a separate argument stack
+            } else if (value == NO_VALUE) {
+                throw new MissingArgumentException(parameter);
+            } else {
+                flagArguments = contexts.flagArguments((String) value); // put the actual value in a separate argument stack
+            }
+            validateAndSet(parameter.getResolver().resolve(contexts.valueContext(parameter, flagArguments)), actor, values);
+        }
+    }
+
+    /**
+     * Runs another binder on the {@link BaseCommandHandler#mainThreadExecutor main thread executor},
+     * for parameters whose resolver is a {@link revxrsal.commands.process.MainThreadResolver}.
+     * <p>
+     * The invocation waits for the binder to finish, so that parameters are still
+     * bound in order. It fails if the main thread does not run the binder within
+     * {@link #TIMEOUT_SECONDS}, rather than waiting forever on a main thread that is
+     * blocked.
+     */
+    private static final class MainThreadBinder extends ParameterBinder {
+
+        /**
+         * The time to wait for the main thread to run the binder
+         */
+        private static final long TIMEOUT_SECONDS = 30;
+
+        private final ParameterBinder binder;
+
+        MainThreadBinder(ParameterBinder binder) {
+            super(binder.parameter);
+            this.binder = binder;
+        }
+
+        @Override void bind(@NotNull BaseCommandHandler handler, @NotNull CommandActor actor, @NotNull ArgumentStack args, @NotNull ResolverContexts contexts, @NotNull Object[] values) throws Throwable {
+            CompletableFuture<Void> bound = new CompletableFuture<>();
+            handler.mainThreadExecutor.execute(() -> {
+                if (bound.isDone()) return; // timed out
+                try {
+                    binder.bind(handler, actor, args, contexts, values);
+                    bound.complete(null);
+                } catch (Throwable throwable) {
+                    bound.completeExceptionally(throwable);
+                }
+            });
+            try {
+                bound.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            } catch (TimeoutException e) {
+                bound.cancel(false);
+                throw new IllegalStateException("Timed out after " + TIMEOUT_SECONDS + " seconds waiting for the main thread to resolve parameter '"
+                        + parameter.getName() + "' of command '" + parameter.getDeclaringCommand().getPath().toRealString() + "'");
+            }
+        }
+    }
+}
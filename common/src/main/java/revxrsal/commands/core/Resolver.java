@@ -8,6 +8,7 @@ import revxrsal.commands.command.CommandParameter;
 import revxrsal.commands.command.ExecutableCommand;
 import revxrsal.commands.process.ContextResolver;
 import revxrsal.commands.process.ContextResolver.ContextResolverContext;
+import revxrsal.commands.process.MainThreadResolver;
 import revxrsal.commands.process.ParameterResolver;
 import revxrsal.commands.process.ValueResolver;
 import revxrsal.commands.process.ValueResolver.ValueResolverContext;
@@ -15,14 +16,16 @@ import revxrsal.commands.process.ValueResolver.ValueResolverContext;
 final class Resolver implements ParameterResolver<Object> {
 
     private final boolean mutates;
+    final boolean mainThread;
 
     private final ContextResolver<?> contextResolver;
-    private final ValueResolver<?> valueResolver;
+    final ValueResolver<?> valueResolver;
 
     public Resolver(ContextResolver<?> contextResolver, ValueResolver<?> valueResolver) {
         this.contextResolver = contextResolver;
         this.valueResolver = valueResolver;
         mutates = valueResolver != null;
+        mainThread = contextResolver instanceof MainThreadResolver || valueResolver instanceof MainThreadResolver;
     }
 
     @Override public boolean mutatesArguments() {
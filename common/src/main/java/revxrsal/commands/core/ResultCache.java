@@ -0,0 +1,227 @@
+package revxrsal.commands.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.commands.annotation.CacheResult;
+import revxrsal.commands.annotation.CacheResult.Scope;
+import revxrsal.commands.command.ArgumentStack;
+import revxrsal.commands.command.CommandActor;
+import revxrsal.commands.command.CommandParameter;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static revxrsal.commands.util.Preconditions.notNull;
+
+/**
+ * The cache of a command that is annotated with {@link CacheResult}.
+ * <p>
+ * Accessible with {@link revxrsal.commands.CommandHandler#getResultCache(revxrsal.commands.command.ExecutableCommand)}
+ */
+public final class ResultCache {
+
+    /**
+     * Returned by {@link #get(Key)} when there is no cached result, as
+     * null is a valid result
+     */
+    static final Object MISS = new Object();
+
+    private final Scope scope;
+    private final long ttl;
+    private final int[] keyIndices;
+    private final LinkedHashMap<Key, CachedResult> results;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private ResultCache(CacheResult annotation, List<CommandParameter> parameters) {
+        ttl = annotation.unit().toNanos(annotation.ttl());
+        int maxSize = annotation.maxSize();
+        results = new LinkedHashMap<Key, CachedResult>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<Key, CachedResult> eldest) {
+                return size() > maxSize;
+            }
+        };
+        // every parameter identifies a result, except for the raw arguments (which are already
+        // covered by the parameters resolved from them) and actors (which are covered by the
+        // scope). context parameters, such as the sender, may depend on the actor, hence they
+        // make the cache per actor.
+        boolean perActor = annotation.scope() == Scope.ACTOR;
+        List<Integer> indices = new ArrayList<>(parameters.size());
+        for (CommandParameter parameter : parameters) {
+            if (ArgumentStack.class.isAssignableFrom(parameter.getType())) continue;
+            boolean context = !parameter.isSwitch() && !parameter.isFlag() && !parameter.getResolver().mutatesArguments();
+            if (context) perActor = true;
+            if (context && CommandActor.class.isAssignableFrom(parameter.getType())) continue;
+            indices.add(parameter.getMethodIndex());
+        }
+        scope = perActor ? Scope.ACTOR : Scope.GLOBAL;
+        keyIndices = indices.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Creates the cache of a command
+     *
+     * @param annotation The cache annotation of the command
+     * @param parameters The command parameters
+     * @return The cache, or null if the command is not cached
+     */
+    static @Nullable ResultCache create(@Nullable CacheResult annotation, @NotNull List<CommandParameter> parameters) {
+        if (annotation == null) return null;
+        if (annotation.ttl() <= 0)
+            throw new IllegalArgumentException("@CacheResult ttl must be positive!");
+        if (annotation.maxSize() <= 0)
+            throw new IllegalArgumentException("@CacheResult maxSize must be positive!");
+        return new ResultCache(annotation, parameters);
+    }
+
+    /**
+     * Creates the key that identifies an invocation
+     *
+     * @param actor     The command actor
+     * @param arguments The resolved method arguments
+     * @return The cache key
+     */
+    @NotNull Key key(@NotNull CommandActor actor, @NotNull Object[] arguments) {
+        Object[] values = new Object[keyIndices.length];
+        for (int i = 0; i < keyIndices.length; i++)
+            values[i] = arguments[keyIndices[i]];
+        return new Key(scope == Scope.ACTOR ? actor.getUniqueId() : null, values);
+    }
+
+    /**
+     * Returns the cached result of the given key
+     *
+     * @param key The invocation key
+     * @return The cached result, or {@link #MISS} if none is cached.
+     */
+    Object get(@NotNull Key key) {
+        CachedResult entry;
+        synchronized (results) {
+            entry = results.get(key);
+            if (entry != null && System.nanoTime() - entry.createdAt >= ttl) {
+                results.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return MISS;
+        }
+        hits.increment();
+        return entry.result;
+    }
+
+    /**
+     * Caches the result of the given key
+     *
+     * @param key    The invocation key
+     * @param result The result to cache
+     */
+    void put(@NotNull Key key, @Nullable Object result) {
+        CachedResult entry = new CachedResult(result, System.nanoTime());
+        synchronized (results) {
+            results.put(key, entry);
+        }
+    }
+
+    /**
+     * Removes all the cached results
+     */
+    public void invalidateAll() {
+        synchronized (results) {
+            results.clear();
+        }
+    }
+
+    /**
+     * Removes all the cached results of the given actor. This only has an
+     * effect on caches with the {@link Scope#ACTOR} scope.
+     *
+     * @param actor The actor to invalidate for
+     */
+    public void invalidate(@NotNull CommandActor actor) {
+        notNull(actor, "actor");
+        UUID uuid = actor.getUniqueId();
+        synchronized (results) {
+            results.keySet().removeIf(key -> uuid.equals(key.actor));
+        }
+    }
+
+    /**
+     * Returns the scope of this cache. This is {@link Scope#ACTOR} for commands
+     * that have parameters resolved from the context, regardless of the scope
+     * they declare.
+     *
+     * @return The cache scope
+     */
+    public @NotNull Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Returns the number of invocations whose result was found in
+     * this cache
+     *
+     * @return The hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of invocations whose result was not found
+     * in this cache
+     *
+     * @return The miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of results currently cached. This may include
+     * results that have expired but are not evicted yet.
+     *
+     * @return The cache size
+     */
+    public int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    private static final class CachedResult {
+
+        private final Object result;
+        private final long createdAt;
+
+        CachedResult(Object result, long createdAt) {
+            this.result = result;
+            this.createdAt = createdAt;
+        }
+    }
+
+    static final class Key {
+
+        private final @Nullable UUID actor;
+        private final Object[] values;
+        private final int hash;
+
+        Key(@Nullable UUID actor, Object[] values) {
+            this.actor = actor;
+            this.values = values;
+            this.hash = 31 * Objects.hashCode(actor) + Arrays.deepHashCode(values);
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hash == key.hash && Objects.equals(actor, key.actor) && Arrays.deepEquals(values, key.values);
+        }
+
+        @Override public int hashCode() {
+            return hash;
+        }
+    }
+}
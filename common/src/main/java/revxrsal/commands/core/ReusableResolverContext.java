@@ -0,0 +1,147 @@
+package revxrsal.commands.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+import revxrsal.commands.command.ArgumentStack;
+import revxrsal.commands.command.CommandActor;
+import revxrsal.commands.command.CommandParameter;
+import revxrsal.commands.core.BaseCommandDispatcher.ResolverContexts;
+import revxrsal.commands.core.BaseCommandDispatcher.ValueContextR;
+import revxrsal.commands.exception.ArgumentParseException;
+import revxrsal.commands.process.ContextResolver;
+import revxrsal.commands.process.ValueResolver.ValueResolverContext;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A single resolver context that gets re-pointed at every parameter of
+ * an invocation, rather than creating a new context for each one.
+ * <p>
+ * Instances are held per-thread by the {@link BaseCommandDispatcher} and reused
+ * across invocations. The {@link #input()} is copied into a reusable buffer and
+ * exposed through a view over it, rather than being copied into a new list.
+ * <p>
+ * As this context is reused, resolvers must not keep a reference to it (or to
+ * its {@link #input()}) after they return.
+ *
+ * @see BaseCommandHandler#reuseResolverContexts()
+ */
+final class ReusableResolverContext extends ValueContextR implements ContextResolver.ContextResolverContext, ResolverContexts {
+
+    private static final String[] EMPTY = new String[0];
+    private static final Object[] NO_FLAGS = new Object[0];
+
+    /**
+     * Whether is this context currently used by an invocation
+     */
+    boolean inUse;
+
+    private final BaseCommandHandler handler;
+    private final InputView inputView = new InputView();
+    private String[] inputBuffer = EMPTY;
+    private int inputSize;
+    private ArgumentStack flagArguments;
+    private Object[] flags = NO_FLAGS;
+    private int size;
+
+    ReusableResolverContext(@NotNull BaseCommandHandler handler) {
+        super(null, null, null, null, null);
+        this.handler = handler;
+    }
+
+    /**
+     * Prepares this context for a new invocation.
+     *
+     * @param actor     The command actor
+     * @param arguments The invocation arguments
+     * @param size      The amount of parameters in the command
+     * @return This context
+     */
+    ReusableResolverContext reset(@NotNull CommandActor actor, @NotNull ArgumentStack arguments, int size) {
+        inUse = true;
+        this.actor = actor;
+        this.resolved = new Object[size];
+        this.size = size;
+        int argumentsSize = arguments.size();
+        if (inputBuffer.length < argumentsSize)
+            inputBuffer = new String[Math.max(argumentsSize, inputBuffer.length * 2)];
+        int i = 0;
+        for (String argument : arguments)
+            inputBuffer[i++] = argument;
+        inputSize = argumentsSize;
+        return this;
+    }
+
+    /**
+     * Releases all the references held by this context, and marks it as
+     * available for the next invocation.
+     */
+    void release() {
+        Arrays.fill(inputBuffer, 0, inputSize, null);
+        inputSize = 0;
+        actor = null;
+        parameter = null;
+        resolved = null;
+        argumentStack = null;
+        Arrays.fill(flags, 0, Math.min(size, flags.length), null);
+        size = 0;
+        if (flagArguments != null)
+            flagArguments.clear();
+        inUse = false;
+    }
+
+    @Override public @NotNull @Unmodifiable List<String> input() {
+        return inputView;
+    }
+
+    @Override public @NotNull Object[] values() {
+        return resolved;
+    }
+
+    @Override public @NotNull Object[] flags() {
+        if (flags.length < size)
+            flags = new Object[size];
+        return flags;
+    }
+
+    @Override public @NotNull ContextResolver.ContextResolverContext context(@NotNull CommandParameter parameter) {
+        this.parameter = parameter;
+        this.argumentStack = null;
+        return this;
+    }
+
+    @Override public @NotNull ValueResolverContext valueContext(@NotNull CommandParameter parameter, @NotNull ArgumentStack arguments) {
+        this.parameter = parameter;
+        this.argumentStack = arguments;
+        return this;
+    }
+
+    @Override public @NotNull ArgumentStack flagArguments(@NotNull String value) throws ArgumentParseException {
+        if (handler.parsesAsItself(value)) {
+            if (flagArguments == null)
+                flagArguments = handler.emptyStack();
+            flagArguments.clear();
+            flagArguments.add(value);
+            return flagArguments;
+        }
+        return handler.parseArguments(value);
+    }
+
+    /**
+     * An unmodifiable view over the input buffer
+     */
+    private final class InputView extends AbstractList<String> {
+
+        @Override public String get(int index) {
+            if (index < 0 || index >= inputSize)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + inputSize);
+            return inputBuffer[index];
+        }
+
+        @Override public int size() {
+            return inputSize;
+        }
+    }
+}
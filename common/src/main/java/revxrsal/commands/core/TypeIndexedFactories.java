@@ -0,0 +1,126 @@
+package revxrsal.commands.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static revxrsal.commands.util.Preconditions.coerceIn;
+
+/**
+ * An ordered list of factories, where factories that only apply to one exact type
+ * are indexed by that type.
+ * <p>
+ * Looking up the factory of a type only asks the generic factories that precede
+ * the first factory of that exact type, which gives the same result as asking every
+ * factory in order, without scanning all the type-specific factories of other types.
+ *
+ * @param <F> The factory type
+ */
+final class TypeIndexedFactories<F> {
+
+    private final List<Entry<F>> entries = new ArrayList<>();
+
+    /**
+     * The index of the entries. Discarded whenever an entry is added, and rebuilt
+     * on the next lookup.
+     */
+    private @Nullable Index index;
+
+    /**
+     * Adds a generic factory, which is asked for every type
+     *
+     * @param factory The factory
+     */
+    void add(@NotNull F factory) {
+        add(entries.size(), null, factory);
+    }
+
+    /**
+     * Adds a factory that only applies to the given exact type
+     *
+     * @param type    The type
+     * @param factory The factory
+     */
+    void add(@NotNull Class<?> type, @NotNull F factory) {
+        add(entries.size(), type, factory);
+    }
+
+    /**
+     * Adds a factory at the given priority
+     *
+     * @param priority The priority. This is coerced into the bounds of the list.
+     * @param type     The exact type the factory applies to, or null if it is generic.
+     * @param factory  The factory
+     */
+    void add(int priority, @Nullable Class<?> type, @NotNull F factory) {
+        entries.add(coerceIn(priority, 0, entries.size()), new Entry<>(type, factory));
+        index = null;
+    }
+
+    /**
+     * Returns the first non-null result of the factories that apply to the given type,
+     * in order.
+     *
+     * @param type   The type to look up
+     * @param create The function that asks a factory for its result
+     * @param <R>    The result type
+     * @return The result, or null if no factory applies.
+     */
+    <R> @Nullable R find(@NotNull Class<?> type, @NotNull Function<F, R> create) {
+        Index index = this.index;
+        if (index == null)
+            this.index = index = new Index();
+        Integer typed = index.firstOfType.get(type);
+        int end = typed == null ? entries.size() : typed;
+        for (int position : index.generic) {
+            if (position > end) break;
+            R result = create.apply(entries.get(position).factory);
+            if (result != null) return result;
+        }
+        if (typed == null) return null;
+        // type-specific factories always apply, but keep asking the rest in order if it did not
+        for (int position = typed; position < entries.size(); position++) {
+            Entry<F> entry = entries.get(position);
+            if (entry.type != null && entry.type != type) continue;
+            R result = create.apply(entry.factory);
+            if (result != null) return result;
+        }
+        return null;
+    }
+
+    private final class Index {
+
+        private final Map<Class<?>, Integer> firstOfType = new HashMap<>();
+        private final int[] generic;
+
+        Index() {
+            int[] generic = new int[entries.size()];
+            int count = 0;
+            for (int position = 0; position < entries.size(); position++) {
+                Class<?> type = entries.get(position).type;
+                if (type == null)
+                    generic[count++] = position;
+                else
+                    firstOfType.putIfAbsent(type, position);
+            }
+            this.generic = count == generic.length ? generic : Arrays.copyOf(generic, count);
+        }
+    }
+
+    private static final class Entry<F> {
+
+        private final @Nullable Class<?> type;
+        private final F factory;
+
+        Entry(@Nullable Class<?> type, F factory) {
+            this.type = type;
+            this.factory = factory;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package revxrsal.commands.core.reflect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The metadata of a command container, which is generated at compile time by
+ * Lamp's annotation processor (the {@code processor} module).
+ * <p>
+ * When a container has generated metadata, registering it only reads the methods
+ * that may be commands, rather than every method of the container and its superclasses,
+ * and calls them directly rather than through method handles. Parameter names are
+ * also taken from the source code when the container was not compiled with
+ * {@code -parameters}.
+ * <p>
+ * This class is not meant to be extended manually.
+ */
+public abstract class GeneratedContainer {
+
+    /**
+     * The suffix of the names of generated classes. A container named {@code Outer.Inner}
+     * has its metadata generated into {@code Outer_Inner_LampCommands}, in the same package.
+     */
+    public static final String SUFFIX = "_LampCommands";
+
+    private static final ClassValue<GeneratedContainer> GENERATED = new ClassValue<GeneratedContainer>() {
+        @Override protected GeneratedContainer computeValue(Class<?> type) {
+            return load(type);
+        }
+    };
+
+    private final List<Method> methods;
+    private final String[][] parameterNames;
+
+    /**
+     * Creates the metadata of a container
+     *
+     * @param container      The container class
+     * @param signatures     The signature of every method: the binary name of its declaring
+     *                       class, its name, and the names of its parameter types as returned
+     *                       by {@link Class#getTypeName()}.
+     * @param parameterNames The parameter names of every method
+     */
+    protected GeneratedContainer(@NotNull Class<?> container,
+                                 @NotNull String[][] signatures,
+                                 @NotNull String[][] parameterNames) {
+        Method[] methods = new Method[signatures.length];
+        Class<?> declaring = container;
+        Method[] declared = null;
+        for (int i = 0; i < signatures.length; i++) {
+            String[] signature = signatures[i];
+            if (declared == null || !declaring.getName().equals(signature[0])) {
+                declaring = container;
+                while (declaring != null && !declaring.getName().equals(signature[0]))
+                    declaring = declaring.getSuperclass();
+                if (declaring == null)
+                    throw new IllegalStateException("Class " + signature[0] + " is not a superclass of " + container);
+                declared = declaring.getDeclaredMethods();
+            }
+            methods[i] = find(declared, signature);
+        }
+        this.methods = Collections.unmodifiableList(Arrays.asList(methods));
+        this.parameterNames = parameterNames;
+    }
+
+    private static Method find(Method[] declared, String[] signature) {
+        search:
+        for (Method method : declared) {
+            if (method.isBridge() || !method.getName().equals(signature[1]) || method.getParameterCount() != signature.length - 2)
+                continue;
+            Class<?>[] types = method.getParameterTypes();
+            for (int i = 0; i < types.length; i++)
+                if (!types[i].getTypeName().equals(signature[i + 2]))
+                    continue search;
+            return method;
+        }
+        throw new IllegalStateException("No such method: " + String.join(" ", signature));
+    }
+
+    /**
+     * Returns the methods of the container and its superclasses that may be commands,
+     * which are the ones that have any annotations.
+     *
+     * @return The methods
+     */
+    public final @NotNull @Unmodifiable List<Method> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Returns the parameter names of the given method, as written in the source code
+     *
+     * @param method The method index in {@link #getMethods()}
+     * @return The parameter names
+     */
+    public final @NotNull String[] getParameterNames(int method) {
+        return parameterNames[method].clone();
+    }
+
+    /**
+     * Returns a caller that calls the given method directly
+     *
+     * @param method The method index in {@link #getMethods()}
+     * @return The caller, or null if the method cannot be called directly (for
+     * example, if it is private).
+     */
+    public abstract @Nullable MethodCaller getCaller(int method);
+
+    /**
+     * Returns the generated metadata of the given container
+     *
+     * @param container The container class
+     * @return The metadata, or null if the container has no generated metadata
+     */
+    public static @Nullable GeneratedContainer of(@NotNull Class<?> container) {
+        return GENERATED.get(container);
+    }
+
+    private static @Nullable GeneratedContainer load(Class<?> container) {
+        ClassLoader loader = container.getClassLoader();
+        if (loader == null || container.isAnonymousClass() || container.isLocalClass())
+            return null;
+        String name = container.getName();
+        int dot = name.lastIndexOf('.');
+        String generated = name.substring(0, dot + 1) + name.substring(dot + 1).replace('$', '_') + SUFFIX;
+        try {
+            Class<?> type = Class.forName(generated, true, loader);
+            if (!GeneratedContainer.class.isAssignableFrom(type)) return null;
+            return (GeneratedContainer) type.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | IllegalStateException | LinkageError e) {
+            // there is no generated class, or it is out of date, so we fall back to reflection.
+            return null;
+        }
+    }
+}
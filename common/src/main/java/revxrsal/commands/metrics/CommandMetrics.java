@@ -0,0 +1,190 @@
+package revxrsal.commands.metrics;
+
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+import revxrsal.commands.CommandHandler;
+import revxrsal.commands.command.ExecutableCommand;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static revxrsal.commands.util.Preconditions.notNull;
+
+/**
+ * The metrics registry of a {@link CommandHandler}, which records metrics for
+ * every command by its {@link ExecutableCommand#getId() id}.
+ * <p>
+ * Metrics are disabled by default, and can be enabled with {@link #enable()}.
+ * <p>
+ * Accessible with {@link CommandHandler#getMetrics()}
+ */
+public final class CommandMetrics {
+
+    private final Map<Integer, CommandStats> stats = new ConcurrentHashMap<>();
+    private final Collection<CommandStats> statsView = Collections.unmodifiableCollection(stats.values());
+    private volatile boolean enabled = false;
+
+    /**
+     * Starts recording metrics
+     *
+     * @return This metrics registry
+     */
+    public @NotNull CommandMetrics enable() {
+        enabled = true;
+        return this;
+    }
+
+    /**
+     * Stops recording metrics. Metrics that were already recorded
+     * are kept.
+     *
+     * @return This metrics registry
+     */
+    public @NotNull CommandMetrics disable() {
+        enabled = false;
+        return this;
+    }
+
+    /**
+     * Returns whether are metrics currently recorded
+     *
+     * @return Whether are metrics enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the stats to record the invocation of the given command in,
+     * creating them if needed.
+     *
+     * @param command The invoked command
+     * @return The command stats, or null if metrics are disabled.
+     */
+    @Internal
+    public @Nullable CommandStats statsFor(@NotNull ExecutableCommand command) {
+        if (!enabled) return null;
+        CommandStats commandStats = stats.get(command.getId());
+        if (commandStats == null)
+            commandStats = stats.computeIfAbsent(command.getId(), id -> new CommandStats(command));
+        return commandStats;
+    }
+
+    /**
+     * Removes the recorded metrics of the given command, so that they are no
+     * longer exported. This is called when the command is unregistered.
+     *
+     * @param command The unregistered command
+     */
+    @Internal
+    public void remove(@NotNull ExecutableCommand command) {
+        // commands of the same method share their ID, so only remove the
+        // stats if they belong to this command.
+        stats.computeIfPresent(command.getId(), (id, commandStats) -> commandStats.getCommand() == command ? null : commandStats);
+    }
+
+    /**
+     * Returns the recorded metrics of the given command
+     *
+     * @param command The command
+     * @return The command stats, or null if the command was never invoked
+     * while metrics are enabled.
+     */
+    public @Nullable CommandStats getStats(@NotNull ExecutableCommand command) {
+        notNull(command, "command");
+        return stats.get(command.getId());
+    }
+
+    /**
+     * Returns the recorded metrics of the command with the given ID
+     *
+     * @param commandId The command ID
+     * @return The command stats, or null if the command was never invoked
+     * while metrics are enabled.
+     */
+    public @Nullable CommandStats getStats(int commandId) {
+        return stats.get(commandId);
+    }
+
+    /**
+     * Returns a view of the recorded metrics of all commands
+     *
+     * @return The metrics of all commands
+     */
+    public @NotNull @UnmodifiableView Collection<CommandStats> getAllStats() {
+        return statsView;
+    }
+
+    /**
+     * Resets all the recorded metrics
+     */
+    public void reset() {
+        stats.values().forEach(CommandStats::reset);
+    }
+
+    /**
+     * Exports the recorded metrics to the given output
+     *
+     * @param exporter The exporter to use
+     * @param out      The output to write to
+     * @throws IOException If writing to the output fails
+     */
+    public void export(@NotNull MetricsExporter exporter, @NotNull Appendable out) throws IOException {
+        notNull(exporter, "exporter");
+        notNull(out, "output");
+        exporter.export(this, out);
+    }
+
+    /**
+     * Exports the recorded metrics to the given file. The file is replaced
+     * atomically where supported, so that readers never see a partial export.
+     *
+     * @param exporter The exporter to use
+     * @param file     The file to write to
+     * @throws IOException If writing to the file fails
+     */
+    public void exportTo(@NotNull MetricsExporter exporter, @NotNull Path file) throws IOException {
+        notNull(exporter, "exporter");
+        notNull(file, "file");
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                exporter.export(this, writer);
+            }
+            try {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Starts serving the recorded metrics over HTTP on the given address, so
+     * that they can be scraped by monitoring tools.
+     *
+     * @param exporter The exporter to use
+     * @param address  The address to bind to. This should usually be a loopback address.
+     * @return The server. Close it to stop serving.
+     * @throws IOException If binding to the address fails
+     */
+    public @NotNull MetricsServer serve(@NotNull MetricsExporter exporter, @NotNull InetSocketAddress address) throws IOException {
+        notNull(exporter, "exporter");
+        notNull(address, "address");
+        return MetricsServer.start(this, exporter, address);
+    }
+}
@@ -0,0 +1,170 @@
+package revxrsal.commands.metrics;
+
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+import revxrsal.commands.command.ExecutableCommand;
+import revxrsal.commands.exception.CommandInvocationException;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The recorded metrics of a single {@link ExecutableCommand}.
+ *
+ * @see CommandMetrics#getStats(ExecutableCommand)
+ */
+public final class CommandStats {
+
+    private final ExecutableCommand command;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Map<Class<? extends Throwable>, LongAdder> errorsByType = new ConcurrentHashMap<>();
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Phase.values().length];
+
+    CommandStats(@NotNull ExecutableCommand command) {
+        this.command = command;
+        for (int i = 0; i < latencies.length; i++)
+            latencies[i] = new LatencyHistogram();
+    }
+
+    /**
+     * Records an invocation of the command
+     */
+    @Internal
+    public void recordInvocation() {
+        invocations.increment();
+    }
+
+    /**
+     * Records the latency of a phase that started at the given time.
+     *
+     * @param phase The phase
+     * @param start The {@link System#nanoTime()} the phase started at
+     * @return The current {@link System#nanoTime()}, which is when the
+     * next phase starts
+     */
+    @Internal
+    public long record(@NotNull Phase phase, long start) {
+        long now = System.nanoTime();
+        latencies[phase.ordinal()].record(now - start);
+        return now;
+    }
+
+    /**
+     * Records the latency of a phase
+     *
+     * @param phase The phase
+     * @param nanos The latency, in nanoseconds
+     */
+    @Internal
+    public void recordLatency(@NotNull Phase phase, long nanos) {
+        latencies[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records an error thrown by the command. Errors thrown from the command
+     * method itself are recorded by their actual type.
+     *
+     * @param error The error
+     */
+    @Internal
+    public void recordError(@NotNull Throwable error) {
+        errors.increment();
+        if (error instanceof CommandInvocationException && error.getCause() != null)
+            error = error.getCause();
+        errorsByType.computeIfAbsent(error.getClass(), c -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns the command these metrics belong to
+     *
+     * @return The command
+     */
+    public @NotNull ExecutableCommand getCommand() {
+        return command;
+    }
+
+    /**
+     * Returns the number of times the command was invoked. This includes
+     * invocations that have failed.
+     *
+     * @return The invocation count
+     */
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    /**
+     * Returns the number of invocations that have failed
+     *
+     * @return The error count
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Returns a snapshot of the number of errors of every exception type
+     *
+     * @return The error counts
+     */
+    public @NotNull @Unmodifiable Map<Class<? extends Throwable>, Long> getErrorsByType() {
+        Map<Class<? extends Throwable>, Long> snapshot = new HashMap<>();
+        errorsByType.forEach((type, count) -> snapshot.put(type, count.sum()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Returns the latencies of the given phase
+     *
+     * @param phase The phase
+     * @return The latency histogram
+     */
+    public @NotNull LatencyHistogram getLatency(@NotNull Phase phase) {
+        return latencies[phase.ordinal()];
+    }
+
+    void reset() {
+        invocations.reset();
+        errors.reset();
+        errorsByType.clear();
+        for (LatencyHistogram latency : latencies)
+            latency.reset();
+    }
+
+    /**
+     * Represents a phase of a command invocation
+     */
+    public enum Phase {
+
+        /**
+         * Tokenizing the input into arguments. This is only recorded when the
+         * command is dispatched from a string input.
+         */
+        TOKENIZE,
+
+        /**
+         * Testing the command conditions
+         */
+        CONDITION,
+
+        /**
+         * Resolving the parameters
+         */
+        RESOLVE,
+
+        /**
+         * Invoking the command method
+         */
+        INVOKE,
+
+        /**
+         * Handling the returned value
+         */
+        RESPONSE
+    }
+}
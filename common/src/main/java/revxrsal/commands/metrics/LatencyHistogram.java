@@ -0,0 +1,99 @@
+package revxrsal.commands.metrics;
+
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies with fixed buckets, which are shared by all
+ * histograms.
+ * <p>
+ * Every bucket is a striped counter, so that recording from many threads
+ * at once does not contend on a single value.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The inclusive upper bounds of the buckets, in nanoseconds. Latencies
+     * above the last bound go into an additional, unbounded bucket.
+     */
+    private static final long[] BOUNDS = {
+            1_000L, 5_000L, 10_000L, 50_000L, 100_000L, 500_000L,
+            1_000_000L, 5_000_000L, 10_000_000L, 50_000_000L, 100_000_000L, 500_000_000L,
+            1_000_000_000L, 5_000_000_000L
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder total = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    /**
+     * Records the given latency
+     *
+     * @param nanos The latency, in nanoseconds
+     */
+    @Internal
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        int bucket = 0;
+        while (bucket < BOUNDS.length && nanos > BOUNDS[bucket])
+            bucket++;
+        buckets[bucket].increment();
+        total.add(nanos);
+    }
+
+    /**
+     * Returns the inclusive upper bounds of the buckets, in nanoseconds. The
+     * last bucket, which is not included here, is unbounded.
+     *
+     * @return The bucket bounds
+     */
+    public static long @NotNull [] getBucketBounds() {
+        return BOUNDS.clone();
+    }
+
+    /**
+     * Returns the number of latencies in every bucket. This array has one
+     * element more than {@link #getBucketBounds()}, for the unbounded bucket.
+     *
+     * @return The bucket counts
+     */
+    public long @NotNull [] getBucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = buckets[i].sum();
+        return counts;
+    }
+
+    /**
+     * Returns the number of recorded latencies
+     *
+     * @return The count
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets)
+            count += bucket.sum();
+        return count;
+    }
+
+    /**
+     * Returns the sum of all recorded latencies, in nanoseconds
+     *
+     * @return The total latency
+     */
+    public long getTotalNanos() {
+        return total.sum();
+    }
+
+    void reset() {
+        for (LongAdder bucket : buckets)
+            bucket.reset();
+        total.reset();
+    }
+}
@@ -0,0 +1,31 @@
+package revxrsal.commands.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Writes the recorded {@link CommandMetrics} in a specific format.
+ *
+ * @see CommandMetrics#export(MetricsExporter, Appendable)
+ * @see CommandMetrics#exportTo(MetricsExporter, java.nio.file.Path)
+ * @see CommandMetrics#serve(MetricsExporter, java.net.InetSocketAddress)
+ */
+@FunctionalInterface
+public interface MetricsExporter {
+
+    /**
+     * An exporter that writes metrics in the Prometheus text exposition format
+     */
+    MetricsExporter PROMETHEUS = PrometheusExporter.INSTANCE;
+
+    /**
+     * Writes the given metrics to the given output
+     *
+     * @param metrics The metrics to export
+     * @param out     The output to write to
+     * @throws IOException If writing to the output fails
+     */
+    void export(@NotNull CommandMetrics metrics, @NotNull Appendable out) throws IOException;
+
+}
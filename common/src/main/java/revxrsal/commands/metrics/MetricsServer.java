@@ -0,0 +1,90 @@
+package revxrsal.commands.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A minimal HTTP server that responds to every request with the
+ * exported metrics. This is intended for local scraping only, and
+ * handles one request at a time on a single daemon thread.
+ *
+ * @see CommandMetrics#serve(MetricsExporter, InetSocketAddress)
+ */
+public final class MetricsServer implements Closeable {
+
+    private final CommandMetrics metrics;
+    private final MetricsExporter exporter;
+    private final ServerSocket socket;
+
+    private MetricsServer(CommandMetrics metrics, MetricsExporter exporter, ServerSocket socket) {
+        this.metrics = metrics;
+        this.exporter = exporter;
+        this.socket = socket;
+    }
+
+    static MetricsServer start(CommandMetrics metrics, MetricsExporter exporter, InetSocketAddress address) throws IOException {
+        ServerSocket socket = new ServerSocket();
+        socket.bind(address);
+        MetricsServer server = new MetricsServer(metrics, exporter, socket);
+        Thread thread = new Thread(server::acceptLoop, "lamp-metrics-server");
+        thread.setDaemon(true);
+        thread.start();
+        return server;
+    }
+
+    /**
+     * Returns the address this server is bound to
+     *
+     * @return The bound address
+     */
+    public @NotNull InetSocketAddress getAddress() {
+        return (InetSocketAddress) socket.getLocalSocketAddress();
+    }
+
+    private void acceptLoop() {
+        while (!socket.isClosed()) {
+            try (Socket client = socket.accept()) {
+                respond(client);
+            } catch (SocketException e) {
+                if (socket.isClosed()) return;
+            } catch (IOException ignored) {
+                // the client went away, wait for the next one.
+            }
+        }
+    }
+
+    private void respond(Socket client) throws IOException {
+        client.setSoTimeout(5000);
+        BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+        String line;
+        do { // skip the request, every path gets the metrics
+            line = in.readLine();
+        } while (line != null && !line.isEmpty());
+
+        StringBuilder body = new StringBuilder();
+        exporter.export(metrics, body);
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        OutputStream out = client.getOutputStream();
+        out.write(("HTTP/1.0 200 OK\r\n" +
+                "Content-Type: text/plain; version=0.0.4; charset=utf-8\r\n" +
+                "Content-Length: " + bytes.length + "\r\n" +
+                "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.flush();
+    }
+
+    /**
+     * Stops serving metrics
+     *
+     * @throws IOException If closing the socket fails
+     */
+    @Override public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,87 @@
+package revxrsal.commands.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import revxrsal.commands.metrics.CommandStats.Phase;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Exports metrics in the Prometheus text exposition format
+ */
+enum PrometheusExporter implements MetricsExporter {
+
+    INSTANCE;
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    @Override public void export(@NotNull CommandMetrics metrics, @NotNull Appendable out) throws IOException {
+        header(out, "lamp_command_invocations_total", "counter", "The number of times a command was invoked");
+        for (CommandStats stats : metrics.getAllStats()) {
+            out.append("lamp_command_invocations_total{").append(labels(stats)).append("} ")
+                    .append(Long.toString(stats.getInvocations())).append('\n');
+        }
+
+        header(out, "lamp_command_errors_total", "counter", "The number of failed command invocations, by exception type");
+        for (CommandStats stats : metrics.getAllStats()) {
+            for (Map.Entry<Class<? extends Throwable>, Long> error : stats.getErrorsByType().entrySet()) {
+                out.append("lamp_command_errors_total{").append(labels(stats))
+                        .append(",exception=\"").append(escape(error.getKey().getName())).append("\"} ")
+                        .append(Long.toString(error.getValue())).append('\n');
+            }
+        }
+
+        header(out, "lamp_command_phase_seconds", "histogram", "The latency of every phase of a command invocation");
+        long[] bounds = LatencyHistogram.getBucketBounds();
+        for (CommandStats stats : metrics.getAllStats()) {
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = stats.getLatency(phase);
+                long[] counts = histogram.getBucketCounts();
+                String labels = labels(stats) + ",phase=\"" + phase.name().toLowerCase(Locale.ROOT) + "\"";
+                long cumulative = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    cumulative += counts[i];
+                    String le = i < bounds.length ? Double.toString(bounds[i] / NANOS_PER_SECOND) : "+Inf";
+                    out.append("lamp_command_phase_seconds_bucket{").append(labels)
+                            .append(",le=\"").append(le).append("\"} ")
+                            .append(Long.toString(cumulative)).append('\n');
+                }
+                out.append("lamp_command_phase_seconds_sum{").append(labels).append("} ")
+                        .append(Double.toString(histogram.getTotalNanos() / NANOS_PER_SECOND)).append('\n');
+                out.append("lamp_command_phase_seconds_count{").append(labels).append("} ")
+                        .append(Long.toString(cumulative)).append('\n');
+            }
+        }
+    }
+
+    private static void header(Appendable out, String name, String type, String help) throws IOException {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String labels(CommandStats stats) {
+        return "command=\"" + escape(stats.getCommand().getPath().toRealString()) + "\",id=\"" + stats.getCommand().getId() + "\"";
+    }
+
+    private static String escape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
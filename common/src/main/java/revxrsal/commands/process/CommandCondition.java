@@ -6,14 +6,21 @@ import revxrsal.commands.command.CommandActor;
 import revxrsal.commands.command.ExecutableCommand;
 import revxrsal.commands.exception.CommandExceptionHandler;
 
+import java.lang.annotation.Annotation;
 import java.util.List;
+import java.util.function.Predicate;
+
+import static revxrsal.commands.util.Preconditions.notNull;
 
 /**
  * Represents a condition that must be met in order for the command
  * invocation to continue.
  * <p>
  * These conditions can test against custom annotations in {@link ExecutableCommand}s,
- * and hence perform external checks for reducing boilerplate
+ * and hence perform external checks for reducing boilerplate.
+ * <p>
+ * Conditions that only concern some commands should declare so through
+ * {@link #appliesTo(ExecutableCommand)}, so that other commands skip them entirely.
  */
 public interface CommandCondition {
 
@@ -31,4 +38,57 @@ public interface CommandCondition {
                  @NotNull ExecutableCommand command,
                  @NotNull @Unmodifiable List<String> arguments);
 
+    /**
+     * Returns whether should this condition be tested against the given command.
+     * <p>
+     * This is evaluated once for every command when it is registered, and commands
+     * that this condition does not apply to will never invoke {@link #test(CommandActor, ExecutableCommand, List)}.
+     * Therefore, this should only depend on properties of the command that do not change,
+     * such as its annotations.
+     *
+     * @param command The command to test
+     * @return Whether should this condition be tested against the command
+     */
+    default boolean appliesTo(@NotNull ExecutableCommand command) {
+        return true;
+    }
+
+    /**
+     * Returns a condition that is only tested against commands that have
+     * the given annotation.
+     *
+     * @param annotation The annotation type
+     * @param condition  The condition to test
+     * @return The condition
+     */
+    static @NotNull CommandCondition forAnnotation(@NotNull Class<? extends Annotation> annotation,
+                                                   @NotNull CommandCondition condition) {
+        notNull(annotation, "annotation");
+        return forCommands(command -> command.hasAnnotation(annotation), condition);
+    }
+
+    /**
+     * Returns a condition that is only tested against commands that match
+     * the given predicate.
+     *
+     * @param predicate The predicate commands must match
+     * @param condition The condition to test
+     * @return The condition
+     * @see #appliesTo(ExecutableCommand)
+     */
+    static @NotNull CommandCondition forCommands(@NotNull Predicate<ExecutableCommand> predicate,
+                                                 @NotNull CommandCondition condition) {
+        notNull(predicate, "predicate");
+        notNull(condition, "condition");
+        return new CommandCondition() {
+            @Override public void test(@NotNull CommandActor actor, @NotNull ExecutableCommand command, @NotNull @Unmodifiable List<String> arguments) {
+                condition.test(actor, command, arguments);
+            }
+
+            @Override public boolean appliesTo(@NotNull ExecutableCommand command) {
+                return predicate.test(command) && condition.appliesTo(command);
+            }
+        };
+    }
+
 }
@@ -5,6 +5,8 @@ import revxrsal.commands.process.ParameterResolver.ParameterResolverContext;
 
 import java.util.function.Supplier;
 
+import static revxrsal.commands.util.Preconditions.notNull;
+
 /**
  * A resolver for resolving values that are, by default, resolvable through the command
  * invocation context, and do not need any data from the arguments to find the value.
@@ -50,6 +52,27 @@ public interface ContextResolver<T> {
         return context -> value.get();
     }
 
+    /**
+     * Returns a context resolver that delegates to the given resolver, and is
+     * always invoked on the platform's main thread, even when the command is
+     * {@link revxrsal.commands.annotation.Async}.
+     *
+     * @param resolver The resolver to delegate to
+     * @param <T>      The value type
+     * @return The context resolver
+     * @see MainThreadResolver
+     */
+    static <T> ContextResolver<T> onMainThread(@NotNull ContextResolver<T> resolver) {
+        notNull(resolver, "resolver");
+        class MainThreadContextResolver implements ContextResolver<T>, MainThreadResolver {
+
+            @Override public T resolve(@NotNull ContextResolverContext context) throws Throwable {
+                return resolver.resolve(context);
+            }
+        }
+        return new MainThreadContextResolver();
+    }
+
     /**
      * Represents the resolving context of {@link ContextResolver}. This contains
      * all the relevant information about the resolving context.
@@ -0,0 +1,22 @@
+package revxrsal.commands.process;
+
+import revxrsal.commands.CommandHandler;
+import revxrsal.commands.annotation.Async;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A marker for {@link ValueResolver}s and {@link ContextResolver}s that must be
+ * invoked on the platform's main thread.
+ * <p>
+ * When a command is {@link Async}, its parameters are resolved on the async executor
+ * of the command handler. Parameters whose resolver implements this interface are handed
+ * over to the {@link CommandHandler#setMainThreadExecutor(Executor) main thread executor}
+ * instead, and the invocation waits for them to be resolved, failing if the main thread
+ * does not resolve them within 30 seconds. Parameters of commands that are not
+ * {@link Async} are resolved on the thread that dispatches the command.
+ * <p>
+ * Lambda resolvers can be marked with {@link ValueResolver#onMainThread(ValueResolver)}
+ * and {@link ContextResolver#onMainThread(ContextResolver)}.
+ */
+public interface MainThreadResolver {}
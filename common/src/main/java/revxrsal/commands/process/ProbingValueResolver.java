@@ -0,0 +1,39 @@
+package revxrsal.commands.process;
+
+import org.jetbrains.annotations.NotNull;
+import revxrsal.commands.process.ValueResolver.ValueResolverContext;
+
+/**
+ * A {@link ValueResolver} that can also attempt to resolve its value without
+ * throwing an exception, and without consuming any arguments when it fails.
+ * <p>
+ * This lets resolvers that try several types in turn, such as the one of
+ * {@link revxrsal.commands.util.Either}, probe each type cheaply rather than
+ * copying the arguments and catching the exception of every failed type.
+ * <p>
+ * The built-in resolvers of numbers, booleans, enums and {@link java.util.UUID}s
+ * implement this interface.
+ *
+ * @param <T> The resolved type
+ */
+public interface ProbingValueResolver<T> extends ValueResolver<T> {
+
+    /**
+     * Returned by {@link #tryResolve(ValueResolverContext)} when the value
+     * cannot be resolved
+     */
+    Object NO_MATCH = new Object();
+
+    /**
+     * Attempts to resolve the value of this resolver.
+     * <p>
+     * When the value can be resolved, this behaves exactly like
+     * {@link #resolve(ValueResolverContext)}. Otherwise, this returns {@link #NO_MATCH},
+     * and leaves the {@link ValueResolverContext#arguments() arguments} unmodified.
+     *
+     * @param context The command resolving context.
+     * @return The resolved value, or {@link #NO_MATCH}.
+     */
+    Object tryResolve(@NotNull ValueResolverContext context);
+
+}
@@ -10,6 +10,8 @@ import revxrsal.commands.process.ParameterResolver.ParameterResolverContext;
 
 import java.util.NoSuchElementException;
 
+import static revxrsal.commands.util.Preconditions.notNull;
+
 /**
  * A resolver for resolving values that, by default, require data from the arguments
  * to resolve their value.
@@ -28,6 +30,27 @@ public interface ValueResolver<T> {
      */
     T resolve(@NotNull ValueResolverContext context) throws Throwable;
 
+    /**
+     * Returns a value resolver that delegates to the given resolver, and is
+     * always invoked on the platform's main thread, even when the command is
+     * {@link revxrsal.commands.annotation.Async}.
+     *
+     * @param resolver The resolver to delegate to
+     * @param <T>      The value type
+     * @return The value resolver
+     * @see MainThreadResolver
+     */
+    static <T> ValueResolver<T> onMainThread(@NotNull ValueResolver<T> resolver) {
+        notNull(resolver, "resolver");
+        class MainThreadValueResolver implements ValueResolver<T>, MainThreadResolver {
+
+            @Override public T resolve(@NotNull ValueResolverContext context) throws Throwable {
+                return resolver.resolve(context);
+            }
+        }
+        return new MainThreadValueResolver();
+    }
+
     /**
      * Represents the resolving context of {@link ValueResolver}. This contains
      * all the relevant information about the resolving context.
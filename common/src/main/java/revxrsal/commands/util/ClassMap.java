@@ -1,17 +1,39 @@
 package revxrsal.commands.util;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
-public final class ClassMap<V> extends HashMap<Class<?>, V> {
+/**
+ * A thread-safe map of classes, which can also look up the value of the closest
+ * registered supertype of a class.
+ * <p>
+ * The results of {@link #getFlexible(Class)} are cached, including misses, so
+ * looking up a class is lock-free after its first lookup. The cache is discarded
+ * whenever the map is modified through its own methods. Modifying the map through
+ * its views does not discard it.
+ *
+ * @param <V> The value type
+ */
+public final class ClassMap<V> extends ConcurrentHashMap<Class<?>, V> {
+
+    /**
+     * Cached for classes that have no registered supertype
+     */
+    private static final Object NONE = new Object();
+
+    /**
+     * The cached resolutions of {@link #getFlexible(Class)}. Replaced rather than
+     * cleared, so that lookups that are still running cannot store stale values in it.
+     */
+    private volatile Map<Class<?>, Object> resolved = new ConcurrentHashMap<>();
 
     public boolean add(Class<?> type, V value) {
-        Class<?> wrapped = Primitives.wrap(type);
-        if (containsKey(wrapped))
-            return false;
-        put(wrapped, value);
-        return false;
+        return putIfAbsent(Primitives.wrap(type), value) == null;
     }
 
     public V getFlexibleOrDefault(@NotNull Class<?> key, V def) {
@@ -20,17 +42,128 @@ public final class ClassMap<V> extends HashMap<Class<?>, V> {
         return value;
     }
 
+    /**
+     * Returns the value of the given class, or of its closest registered supertype,
+     * preferring superclasses over interfaces of the same distance.
+     *
+     * @param key The class to look up
+     * @return The value, or null if neither the class nor any of its supertypes
+     * are registered.
+     */
+    @SuppressWarnings("unchecked")
     public V getFlexible(@NotNull Class<?> key) {
         key = Primitives.wrap(key);
         V v = get(key);
         if (v != null) return v;
+        Map<Class<?>, Object> resolved = this.resolved;
+        Object cached = resolved.get(key);
+        if (cached == null) {
+            v = resolve(key);
+            resolved.put(key, v == null ? NONE : v);
+            return v;
+        }
+        return cached == NONE ? null : (V) cached;
+    }
+
+    private @Nullable V resolve(Class<?> key) {
+        // breadth-first, so that closer supertypes are found first
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        Set<Class<?>> visited = new HashSet<>();
+        queue.add(key);
+        while (!queue.isEmpty()) {
+            Class<?> type = queue.poll();
+            V v = get(type);
+            if (v != null) return v;
+            if (type.getSuperclass() != null && visited.add(type.getSuperclass()))
+                queue.add(type.getSuperclass());
+            for (Class<?> i : type.getInterfaces())
+                if (visited.add(i))
+                    queue.add(i);
+        }
+        // interfaces and arrays are assignable to types outside their declared supertypes
         for (Entry<Class<?>, V> entry : entrySet()) {
-            if (entry.getKey().isAssignableFrom(key)) {
-                v = entry.getValue();
-                break;
-            }
+            if (entry.getKey().isAssignableFrom(key))
+                return entry.getValue();
         }
-        put(key, v);
-        return v;
+        return null;
+    }
+
+    private void invalidate() {
+        resolved = new ConcurrentHashMap<>();
+    }
+
+    @Override public V put(@NotNull Class<?> key, @NotNull V value) {
+        V previous = super.put(key, value);
+        invalidate();
+        return previous;
+    }
+
+    @Override public void putAll(Map<? extends Class<?>, ? extends V> m) {
+        super.putAll(m);
+        invalidate();
+    }
+
+    @Override public V putIfAbsent(@NotNull Class<?> key, V value) {
+        V previous = super.putIfAbsent(key, value);
+        invalidate();
+        return previous;
+    }
+
+    @Override public V remove(@NotNull Object key) {
+        V previous = super.remove(key);
+        invalidate();
+        return previous;
+    }
+
+    @Override public boolean remove(@NotNull Object key, Object value) {
+        boolean removed = super.remove(key, value);
+        invalidate();
+        return removed;
+    }
+
+    @Override public V replace(@NotNull Class<?> key, @NotNull V value) {
+        V previous = super.replace(key, value);
+        invalidate();
+        return previous;
+    }
+
+    @Override public boolean replace(@NotNull Class<?> key, @NotNull V oldValue, @NotNull V newValue) {
+        boolean replaced = super.replace(key, oldValue, newValue);
+        invalidate();
+        return replaced;
+    }
+
+    @Override public void replaceAll(BiFunction<? super Class<?>, ? super V, ? extends V> function) {
+        super.replaceAll(function);
+        invalidate();
+    }
+
+    @Override public V computeIfAbsent(Class<?> key, Function<? super Class<?>, ? extends V> mappingFunction) {
+        V value = super.computeIfAbsent(key, mappingFunction);
+        invalidate();
+        return value;
+    }
+
+    @Override public V computeIfPresent(Class<?> key, BiFunction<? super Class<?>, ? super V, ? extends V> remappingFunction) {
+        V value = super.computeIfPresent(key, remappingFunction);
+        invalidate();
+        return value;
+    }
+
+    @Override public V compute(Class<?> key, BiFunction<? super Class<?>, ? super V, ? extends V> remappingFunction) {
+        V value = super.compute(key, remappingFunction);
+        invalidate();
+        return value;
+    }
+
+    @Override public V merge(Class<?> key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        V merged = super.merge(key, value, remappingFunction);
+        invalidate();
+        return merged;
+    }
+
+    @Override public void clear() {
+        super.clear();
+        invalidate();
     }
 }
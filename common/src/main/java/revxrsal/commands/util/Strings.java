@@ -53,19 +53,31 @@ public final class Strings {
     }
 
     public static String getName(@NotNull Parameter parameter) {
+        return getName(parameter, parameter.getName());
+    }
+
+    /**
+     * Returns the name of the given parameter, using the given name rather
+     * than the one of the parameter when it is not specified by annotations.
+     *
+     * @param parameter The parameter
+     * @param name      The name of the parameter in the source code
+     * @return The parameter name
+     */
+    public static String getName(@NotNull Parameter parameter, @NotNull String name) {
         Named named = parameter.getAnnotation(Named.class);
         if (named != null) {
             return named.value();
         }
         Switch switchAnn = parameter.getAnnotation(Switch.class);
         if (switchAnn != null) {
-            return switchAnn.value().isEmpty() ? parameter.getName() : switchAnn.value();
+            return switchAnn.value().isEmpty() ? name : switchAnn.value();
         }
         Flag flag = parameter.getAnnotation(Flag.class);
         if (flag != null) {
-            return flag.value().isEmpty() ? parameter.getName() : flag.value();
+            return flag.value().isEmpty() ? name : flag.value();
         }
-        return parameter.getName();
+        return name;
     }
 
     public static String repeat(String string, int count) {
@@ -27,6 +27,7 @@ package revxrsal.commands.util.tokenize;
 import org.jetbrains.annotations.NotNull;
 import revxrsal.commands.command.ArgumentParser;
 import revxrsal.commands.command.ArgumentStack;
+import revxrsal.commands.core.ArrayArgumentStack;
 import revxrsal.commands.exception.ArgumentParseException;
 
 /**
@@ -45,15 +46,207 @@ import revxrsal.commands.exception.ArgumentParseException;
  */
 public final class QuotedStringTokenizer implements ArgumentParser {
 
-    public static final QuotedStringTokenizer INSTANCE = new QuotedStringTokenizer();
+    public static final QuotedStringTokenizer INSTANCE = new QuotedStringTokenizer(false);
 
-    private QuotedStringTokenizer() {}
+    /**
+     * A tokenizer that follows the same grammar, however, it produces argument stacks that
+     * are backed by {@link TokenSlices} of the input, so that tokens only get copied into
+     * strings when they are used.
+     *
+     * @see #slice(CharSequence)
+     */
+    public static final QuotedStringTokenizer SLICING = new QuotedStringTokenizer(true);
+
+    private final boolean slicing;
+
+    private QuotedStringTokenizer(boolean slicing) {
+        this.slicing = slicing;
+    }
 
     private static final int CHAR_BACKSLASH = '\\';
     private static final int CHAR_SINGLE_QUOTE = '\'';
     private static final int CHAR_DOUBLE_QUOTE = '"';
 
     @Override public ArgumentStack parse(@NotNull String arguments) throws ArgumentParseException {
+        if (slicing)
+            return arguments.length() == 0 ? ArgumentStack.empty() : new ArrayArgumentStack(slice(arguments));
+        return parse(arguments, new StringBuilder());
+    }
+
+    /**
+     * Parses arguments that have already been split by spaces.
+     * <p>
+     * Arguments that cannot start or continue a quoted or escaped token are added
+     * to the stack as-is. Only the spans of arguments that open a quote or contain
+     * an escape are joined back and tokenized. When {@link #SLICING}, such inputs are
+     * joined back and sliced as a whole instead.
+     *
+     * @param arguments The arguments to parse
+     * @return The argument stack
+     * @throws ArgumentParseException If the arguments have an invalid format
+     */
+    @Override public ArgumentStack parse(@NotNull String[] arguments) throws ArgumentParseException {
+        boolean plain = true;
+        for (String argument : arguments) {
+            for (int i = 0; i < argument.length(); i++) {
+                char c = argument.charAt(i);
+                if (Character.isWhitespace(c))
+                    return parse(String.join(" ", arguments)); // not split the way we expect
+                if (c == CHAR_BACKSLASH || (i == 0 && (c == CHAR_DOUBLE_QUOTE || c == CHAR_SINGLE_QUOTE)))
+                    plain = false;
+            }
+            if (argument.isEmpty())
+                plain = false;
+        }
+        if (slicing) // slices are only materialized lazily, and keep the input for greedy parameters
+            return plain ? new ArrayArgumentStack(arguments) : parse(String.join(" ", arguments));
+
+        ArgumentStack stack = ArgumentStack.empty();
+        StringBuilder span = null;
+        int quote = 0;
+        boolean escaped = false, tokenStart = true, trailingSpace = false;
+        for (String argument : arguments) {
+            trailingSpace = false;
+            if (span == null) {
+                if (argument.isEmpty()) {
+                    trailingSpace = true;
+                    continue;
+                }
+                if (!opensSpan(argument)) {
+                    stack.add(argument);
+                    continue;
+                }
+                span = new StringBuilder(argument.length());
+                tokenStart = true;
+            } else {
+                span.append(' ');
+                if (escaped) escaped = false;
+                else if (quote == 0) tokenStart = true;
+            }
+            span.append(argument);
+            for (int i = 0; i < argument.length(); i++) {
+                char c = argument.charAt(i);
+                if (escaped) {
+                    escaped = false;
+                } else if (c == CHAR_BACKSLASH) {
+                    escaped = true;
+                    tokenStart = false;
+                } else if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                        tokenStart = true;
+                    }
+                } else if (tokenStart) {
+                    tokenStart = false;
+                    if (c == CHAR_DOUBLE_QUOTE || c == CHAR_SINGLE_QUOTE)
+                        quote = c;
+                }
+            }
+            if (quote == 0 && !escaped) { // the span is closed by the end of this argument
+                addTokens(stack, span);
+                span = null;
+            }
+        }
+        if (span != null) { // an unclosed quote, or an escape at the end of input
+            if (escaped)
+                return parse(String.join(" ", arguments));
+            addTokens(stack, span);
+        } else if (trailingSpace && arguments.length > 1) {
+            stack.add(""); // trailing whitespace produces an empty argument
+        }
+        return stack;
+    }
+
+    private static boolean opensSpan(String argument) {
+        char first = argument.charAt(0);
+        return first == CHAR_DOUBLE_QUOTE || first == CHAR_SINGLE_QUOTE || argument.indexOf(CHAR_BACKSLASH) != -1;
+    }
+
+    private static void addTokens(ArgumentStack stack, CharSequence span) throws ArgumentParseException {
+        TokenSlices tokens = slice(span);
+        for (int i = 0; i < tokens.size(); i++)
+            stack.add(tokens.get(i));
+    }
+
+    /**
+     * Splits the given input into slices, without copying any of the tokens.
+     * <p>
+     * This follows the same grammar as {@link #parse(String)}.
+     *
+     * @param input The input to tokenize
+     * @return The token slices
+     * @throws ArgumentParseException If the input ends with an unfinished escape
+     */
+    public static @NotNull TokenSlices slice(@NotNull CharSequence input) throws ArgumentParseException {
+        TokenSlices slices = new TokenSlices(input);
+        slice(input, 0, slices);
+        return slices;
+    }
+
+    /**
+     * Slices an input that extends a previously sliced input, such as the input of
+     * a tab completion after the user types more characters.
+     * <p>
+     * All the previous tokens except the last one are kept as-is, and only the input
+     * from the start of the last token onwards is tokenized.
+     *
+     * @param input    The input to tokenize. This must start with the {@link TokenSlices#source()}
+     *                 of the previous slices.
+     * @param previous The slices of the previous input
+     * @return The token slices
+     * @throws ArgumentParseException If the input ends with an unfinished escape
+     */
+    public static @NotNull TokenSlices slice(@NotNull CharSequence input, @NotNull TokenSlices previous) throws ArgumentParseException {
+        if (previous.size() == 0)
+            return slice(input);
+        int kept = previous.size() - 1;
+        TokenSlices slices = new TokenSlices(input, previous, kept);
+        slice(input, previous.start(kept), slices);
+        return slices;
+    }
+
+    private static void slice(CharSequence input, int index, TokenSlices slices) throws ArgumentParseException {
+        int length = input.length();
+        while (index < length) {
+            while (index < length && Character.isWhitespace(input.charAt(index)))
+                index++;
+            if (index == length) { // trailing whitespace produces an empty argument
+                slices.add(index, 0, 0);
+                break;
+            }
+            char quote = input.charAt(index);
+            boolean quoted = quote == CHAR_DOUBLE_QUOTE || quote == CHAR_SINGLE_QUOTE;
+            int flags = quoted ? TokenSlices.QUOTED : 0;
+            int start = quoted ? ++index : index;
+            while (index < length) {
+                char c = input.charAt(index);
+                if (quoted ? c == quote : Character.isWhitespace(c))
+                    break;
+                if (c == CHAR_BACKSLASH) {
+                    if (index + 1 == length)
+                        throw new ArgumentParseException("Buffer overrun while parsing args", input.toString(), index);
+                    flags |= TokenSlices.ESCAPED;
+                    index++;
+                }
+                index++;
+            }
+            slices.add(start, index - start, flags);
+            if (quoted && index < length)
+                index++; // consume the closing quote
+        }
+    }
+
+    /**
+     * Parses the given string, using the given builder to build every
+     * argument. This allows one builder to be shared between many strings
+     * that are parsed on the same thread.
+     *
+     * @param arguments String to parse
+     * @param buffer    The builder to build arguments with. Its content is discarded.
+     * @return The argument stack
+     * @throws ArgumentParseException If the string has an invalid format
+     */
+    public ArgumentStack parse(@NotNull String arguments, @NotNull StringBuilder buffer) throws ArgumentParseException {
         if (arguments.length() == 0) {
             return ArgumentStack.empty();
         }
@@ -61,7 +254,7 @@ public final class QuotedStringTokenizer implements ArgumentParser {
         ArgumentStack returnedArgs = ArgumentStack.empty();
         while (state.hasMore()) {
             skipWhiteSpace(state);
-            String arg = nextArg(state);
+            String arg = nextArg(state, buffer);
             returnedArgs.add(arg);
         }
         return returnedArgs;
@@ -76,8 +269,8 @@ public final class QuotedStringTokenizer implements ArgumentParser {
         }
     }
 
-    private String nextArg(TokenizerState state) throws ArgumentParseException {
-        StringBuilder argBuilder = new StringBuilder();
+    private String nextArg(TokenizerState state, StringBuilder argBuilder) throws ArgumentParseException {
+        argBuilder.setLength(0);
         if (state.hasMore()) {
             int codePoint = state.peek();
             if (codePoint == CHAR_DOUBLE_QUOTE || codePoint == CHAR_SINGLE_QUOTE) {
@@ -0,0 +1,186 @@
+package revxrsal.commands.util.tokenize;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * The tokens of an input, represented as (offset, length, flags) slices over
+ * the original input rather than as separate strings.
+ * <p>
+ * A token is only copied into a {@link String} when it is {@link #get(int) requested},
+ * and only gets unescaped when it actually contains escapes.
+ *
+ * @see QuotedStringTokenizer#slice(CharSequence)
+ */
+public final class TokenSlices {
+
+    /**
+     * The token was surrounded by quotes. Its slice does not include the quotes.
+     */
+    public static final int QUOTED = 1;
+
+    /**
+     * The token contains escapes, and has to be unescaped when it is materialized.
+     */
+    public static final int ESCAPED = 1 << 1;
+
+    private final CharSequence source;
+    private int[] offsets = new int[8];
+    private int[] lengths = new int[8];
+    private byte[] flags = new byte[8];
+    private int size;
+
+    TokenSlices(@NotNull CharSequence source) {
+        this.source = source;
+    }
+
+    TokenSlices(@NotNull CharSequence source, @NotNull TokenSlices prefix, int count) {
+        this.source = source;
+        int capacity = Math.max(count * 2, 8);
+        offsets = Arrays.copyOf(prefix.offsets, capacity);
+        lengths = Arrays.copyOf(prefix.lengths, capacity);
+        flags = Arrays.copyOf(prefix.flags, capacity);
+        size = count;
+    }
+
+    void add(int offset, int length, int flags) {
+        if (size == offsets.length) {
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            this.flags = Arrays.copyOf(this.flags, capacity);
+        }
+        offsets[size] = offset;
+        lengths[size] = length;
+        this.flags[size] = (byte) flags;
+        size++;
+    }
+
+    /**
+     * Returns the input these slices are over
+     *
+     * @return The original input
+     */
+    public @NotNull CharSequence source() {
+        return source;
+    }
+
+    /**
+     * Returns the number of tokens
+     *
+     * @return The token count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the offset of the given token in the {@link #source()}. For quoted
+     * tokens, this is the offset after the opening quote.
+     *
+     * @param index The token index
+     * @return The token offset
+     */
+    public int offset(int index) {
+        checkIndex(index);
+        return offsets[index];
+    }
+
+    /**
+     * Returns the length of the given token in the {@link #source()}, including
+     * any escape characters.
+     *
+     * @param index The token index
+     * @return The token length
+     */
+    public int length(int index) {
+        checkIndex(index);
+        return lengths[index];
+    }
+
+    /**
+     * Returns the flags of the given token
+     *
+     * @param index The token index
+     * @return The token flags
+     * @see #QUOTED
+     * @see #ESCAPED
+     */
+    public int flags(int index) {
+        checkIndex(index);
+        return flags[index];
+    }
+
+    /**
+     * Returns the offset in the {@link #source()} where the given token
+     * starts, including its opening quote if it is quoted.
+     *
+     * @param index The token index
+     * @return The token start
+     */
+    public int start(int index) {
+        checkIndex(index);
+        return (flags[index] & QUOTED) != 0 ? offsets[index] - 1 : offsets[index];
+    }
+
+    /**
+     * Returns whether is the given token equal to the given string, without
+     * materializing the token.
+     *
+     * @param index The token index
+     * @param value The string to compare with
+     * @return Whether are they equal
+     */
+    public boolean matches(int index, @NotNull String value) {
+        checkIndex(index);
+        if ((flags[index] & ESCAPED) != 0)
+            return get(index).equals(value);
+        int length = lengths[index];
+        if (length != value.length()) return false;
+        int offset = offsets[index];
+        for (int i = 0; i < length; i++)
+            if (source.charAt(offset + i) != value.charAt(i))
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the input from the start of the given token to its end, exactly as it
+     * was written, including any quotes, escapes and whitespace.
+     *
+     * @param index The token index
+     * @return The remainder of the input
+     */
+    public @NotNull String remainder(int index) {
+        return source.subSequence(start(index), source.length()).toString();
+    }
+
+    /**
+     * Materializes the given token into a string, unescaping it
+     * if needed.
+     *
+     * @param index The token index
+     * @return The token
+     */
+    public @NotNull String get(int index) {
+        checkIndex(index);
+        int offset = offsets[index];
+        int end = offset + lengths[index];
+        if ((flags[index] & ESCAPED) == 0)
+            return source.subSequence(offset, end).toString();
+        StringBuilder builder = new StringBuilder(end - offset);
+        for (int i = offset; i < end; i++) {
+            char c = source.charAt(i);
+            if (c == '\\' && i + 1 < end)
+                c = source.charAt(++i);
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+}
@@ -0,0 +1,275 @@
+package revxrsal.commands.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * An annotation processor that generates the metadata of command containers, so
+ * that registering them does not have to scan and reflectively call their methods.
+ * <p>
+ * A container is any class that declares methods annotated with {@code @Command},
+ * {@code @Subcommand} or {@code @Default}. Its metadata is generated into a
+ * {@code revxrsal.commands.core.reflect.GeneratedContainer} in the same package, which
+ * lists every annotated method of the container and its superclasses (as annotation
+ * replacers may turn any annotated method into a command), their parameter names, and
+ * callers that invoke the methods directly where they are accessible.
+ */
+@SupportedAnnotationTypes({
+        "revxrsal.commands.annotation.Command",
+        "revxrsal.commands.annotation.Subcommand",
+        "revxrsal.commands.annotation.Default"
+})
+public final class CommandProcessor extends AbstractProcessor {
+
+    private static final String SUFFIX = "_LampCommands";
+    private static final String GENERATED_CONTAINER = "revxrsal.commands.core.reflect.GeneratedContainer";
+    private static final String METHOD_CALLER = "revxrsal.commands.core.reflect.MethodCaller";
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> containers = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (ExecutableElement method : ElementFilter.methodsIn(roundEnv.getElementsAnnotatedWith(annotation)))
+                containers.add((TypeElement) method.getEnclosingElement());
+        }
+        for (TypeElement container : containers) {
+            if (!isNameable(container)) continue;
+            try {
+                generate(container);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, "Unable to generate the command metadata: " + e, container);
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement container) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(container).getQualifiedName().toString();
+        String name = flatName(container) + SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? name : packageName + "." + name;
+        if (!generated.add(qualifiedName)) return;
+
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (TypeElement type = container; type != null; type = superclass(type)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                if (!method.getAnnotationMirrors().isEmpty())
+                    methods.add(method);
+            }
+        }
+
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty())
+            out.append("package ").append(packageName).append(";\n\n");
+        out.append("// Generated by Lamp's annotation processor. Do not edit.\n");
+        out.append("@SuppressWarnings({\"rawtypes\", \"unchecked\", \"deprecation\"})\n");
+        out.append("public final class ").append(name).append(" extends ").append(GENERATED_CONTAINER).append(" {\n\n");
+        out.append("    public ").append(name).append("() {\n");
+        out.append("        super(").append(container.getQualifiedName()).append(".class, new String[][]{");
+        for (ExecutableElement method : methods) {
+            out.append("\n                {").append(literal(binaryName((TypeElement) method.getEnclosingElement())));
+            out.append(", ").append(literal(method.getSimpleName().toString()));
+            for (VariableElement parameter : method.getParameters())
+                out.append(", ").append(literal(typeName(erasure(parameter.asType()))));
+            out.append("},");
+        }
+        out.append("\n        }, new String[][]{");
+        for (ExecutableElement method : methods) {
+            out.append("\n                {");
+            StringJoiner names = new StringJoiner(", ");
+            for (VariableElement parameter : method.getParameters())
+                names.add(literal(parameter.getSimpleName().toString()));
+            out.append(names).append("},");
+        }
+        out.append("\n        });\n");
+        out.append("    }\n\n");
+        out.append("    @Override public ").append(METHOD_CALLER).append(" getCaller(int method) {\n");
+        out.append("        switch (method) {\n");
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement method = methods.get(i);
+            if (!canCall(container, method)) continue;
+            out.append("            case ").append(i).append(":\n");
+            out.append("                return (instance, arguments) -> ");
+            String call = call(container, method);
+            if (method.getReturnType().getKind() == TypeKind.VOID)
+                out.append("{\n                    ").append(call).append(";\n                    return null;\n                };\n");
+            else
+                out.append(call).append(";\n");
+        }
+        out.append("            default:\n");
+        out.append("                return null;\n");
+        out.append("        }\n");
+        out.append("    }\n");
+        out.append("}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, container).openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    private String call(TypeElement container, ExecutableElement method) {
+        StringBuilder call = new StringBuilder();
+        if (method.getModifiers().contains(Modifier.STATIC)) {
+            // static methods are hidden rather than overridden, so we qualify them by their declaring class
+            call.append(((TypeElement) method.getEnclosingElement()).getQualifiedName());
+        } else {
+            call.append("((").append(container.getQualifiedName()).append(") instance)");
+        }
+        call.append('.').append(method.getSimpleName()).append('(');
+        List<? extends TypeMirror> parameters = parameterTypes(container, method);
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) call.append(", ");
+            call.append('(').append(sourceName(parameters.get(i))).append(") arguments[").append(i).append(']');
+        }
+        return call.append(')').toString();
+    }
+
+    /**
+     * Returns the erased parameter types of the given method, as seen from the
+     * container that it is called through. Methods inherited from generic superclasses
+     * take the type arguments of the container, such as {@code String} for
+     * {@code set(T)} of a container that extends {@code Base<String>}.
+     */
+    private List<? extends TypeMirror> parameterTypes(TypeElement container, ExecutableElement method) {
+        List<? extends TypeMirror> types;
+        if (method.getModifiers().contains(Modifier.STATIC)) {
+            types = ((ExecutableType) method.asType()).getParameterTypes();
+        } else {
+            DeclaredType containerType = (DeclaredType) container.asType();
+            types = ((ExecutableType) processingEnv.getTypeUtils().asMemberOf(containerType, method)).getParameterTypes();
+        }
+        List<TypeMirror> erased = new ArrayList<>(types.size());
+        for (TypeMirror type : types)
+            erased.add(erasure(type));
+        return erased;
+    }
+
+    /**
+     * Returns whether can the generated class, which is in the package of the container,
+     * call the given method directly
+     */
+    private boolean canCall(TypeElement container, ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) return false;
+        TypeElement declaring = (TypeElement) method.getEnclosingElement();
+        if (!modifiers.contains(Modifier.PUBLIC) && !samePackage(container, declaring)) return false;
+        if (modifiers.contains(Modifier.STATIC) && !isAccessible(container, declaring)) return false;
+        for (TypeMirror type : parameterTypes(container, method))
+            if (!isAccessible(container, type))
+                return false;
+        return true;
+    }
+
+    private boolean isAccessible(TypeElement from, TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return isAccessible(from, ((ArrayType) type).getComponentType());
+            case DECLARED:
+                return isAccessible(from, (TypeElement) ((DeclaredType) type).asElement());
+            default:
+                return type.getKind().isPrimitive();
+        }
+    }
+
+    private boolean isAccessible(TypeElement from, TypeElement type) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) return false;
+            if (!modifiers.contains(Modifier.PUBLIC) && !samePackage(from, (TypeElement) element)) return false;
+        }
+        return true;
+    }
+
+    private boolean samePackage(TypeElement a, TypeElement b) {
+        return processingEnv.getElementUtils().getPackageOf(a).equals(processingEnv.getElementUtils().getPackageOf(b));
+    }
+
+    /**
+     * Returns whether can the given type be referred to from a generated class in
+     * its package, and have its name derived at runtime
+     */
+    private boolean isNameable(TypeElement type) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            NestingKind nesting = ((TypeElement) element).getNestingKind();
+            if (nesting != NestingKind.TOP_LEVEL && nesting != NestingKind.MEMBER) return false;
+            if (element.getModifiers().contains(Modifier.PRIVATE)) return false;
+        }
+        return true;
+    }
+
+    private static String flatName(TypeElement type) {
+        String name = type.getSimpleName().toString().replace('$', '_');
+        Element enclosing = type.getEnclosingElement();
+        return enclosing instanceof TypeElement ? flatName((TypeElement) enclosing) + "_" + name : name;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) return null;
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    private TypeMirror erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type);
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    /**
+     * Returns the name of the given erased type, as returned by {@link Class#getTypeName()}
+     */
+    private String typeName(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return typeName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                return binaryName((TypeElement) ((DeclaredType) type).asElement());
+            default:
+                return type.getKind().name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Returns the name of the given erased type in source code
+     */
+    private String sourceName(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return sourceName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            default:
+                return type.getKind().name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') literal.append('\\');
+            literal.append(c);
+        }
+        return literal.append('"').toString();
+    }
+}
@@ -0,0 +1,149 @@
+package revxrsal.commands.processor;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import revxrsal.commands.core.reflect.GeneratedContainer;
+import revxrsal.commands.core.reflect.MethodCaller;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compiles command containers with the processor, and calls the commands through
+ * the generated metadata.
+ */
+class CommandProcessorTest {
+
+    private static final Map<String, String> SOURCES = new LinkedHashMap<>();
+
+    static {
+        SOURCES.put("p/other/Base.java", String.join("\n",
+                "package p.other;",
+                "import revxrsal.commands.annotation.*;",
+                "public abstract class Base<T> {",
+                "    @Subcommand(\"set\") public String set(T value) { return \"base set \" + value; }",
+                "    @Subcommand(\"get\") public String get(T value) { return \"base get \" + value; }",
+                "    @Subcommand(\"list\") public String list(java.util.List<T> values) { return \"base list \" + values; }",
+                "    @Subcommand(\"help\") public static String help() { return \"base help\"; }",
+                "}"
+        ));
+        SOURCES.put("p/Cmds.java", String.join("\n",
+                "package p;",
+                "import revxrsal.commands.annotation.*;",
+                "@Command(\"cmds\")",
+                "public class Cmds extends p.other.Base<String> {",
+                "    @Override @Subcommand(\"get\") public String get(String value) { return \"cmds get \" + value; }",
+                "    @Subcommand(\"help\") public static String help() { return \"cmds help\"; }",
+                "    @Subcommand(\"sum\") static int sum(int a, int... rest) { for (int i : rest) a += i; return a; }",
+                "    @Subcommand(\"secret\") private void secret() {}",
+                "    public static class Nested<N extends Number> {",
+                "        @Command(\"nested\") public String run(N number, String[] args) { return \"nested \" + number + \" \" + args.length; }",
+                "    }",
+                "}"
+        ));
+    }
+
+    private static ClassLoader loader;
+
+    @BeforeAll
+    static void compile() throws IOException {
+        Path root = Files.createTempDirectory("lamp-processor");
+        Path sources = root.resolve("src");
+        Path classes = Files.createDirectories(root.resolve("classes"));
+        List<File> files = new ArrayList<>();
+        for (Map.Entry<String, String> source : SOURCES.entrySet()) {
+            Path file = sources.resolve(source.getKey());
+            Files.createDirectories(file.getParent());
+            Files.write(file, source.getValue().getBytes(StandardCharsets.UTF_8));
+            files.add(file.toFile());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-d", classes.toString(), "-classpath", System.getProperty("java.class.path")),
+                    null, fileManager.getJavaFileObjectsFromFiles(files));
+            task.setProcessors(Collections.singletonList(new CommandProcessor()));
+            boolean success = task.call();
+            assertTrue(success, () -> "Compilation failed: " + diagnostics.getDiagnostics());
+        }
+        loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, CommandProcessorTest.class.getClassLoader());
+    }
+
+    private static Object call(GeneratedContainer generated, Object instance, String name, Class<?> declaring, Object... arguments) {
+        List<Method> methods = generated.getMethods();
+        for (int i = 0; i < methods.size(); i++) {
+            Method method = methods.get(i);
+            if (method.getName().equals(name) && method.getDeclaringClass() == declaring) {
+                MethodCaller caller = generated.getCaller(i);
+                assertNotNull(caller, () -> "No direct caller for " + method);
+                return caller.call(instance, arguments);
+            }
+        }
+        return fail("No such method: " + name + " in " + declaring);
+    }
+
+    @Test
+    void callsMethodsOfGenericSuperclassesWithTheContainerTypeArguments() throws Exception {
+        Class<?> cmds = loader.loadClass("p.Cmds");
+        Class<?> base = loader.loadClass("p.other.Base");
+        GeneratedContainer generated = GeneratedContainer.of(cmds);
+        assertNotNull(generated);
+        Object instance = cmds.getConstructor().newInstance();
+        assertEquals("base set a", call(generated, instance, "set", base, "a"));
+        assertEquals("base list [a, b]", call(generated, instance, "list", base, Arrays.asList("a", "b")));
+    }
+
+    @Test
+    void callsOverridesVirtually() throws Exception {
+        Class<?> cmds = loader.loadClass("p.Cmds");
+        Class<?> base = loader.loadClass("p.other.Base");
+        GeneratedContainer generated = GeneratedContainer.of(cmds);
+        Object instance = cmds.getConstructor().newInstance();
+        assertEquals("cmds get a", call(generated, instance, "get", cmds, "a"));
+        // reflection would also dispatch to the override
+        assertEquals("cmds get b", call(generated, instance, "get", base, "b"));
+    }
+
+    @Test
+    void callsStaticMethodsOfTheirDeclaringClass() throws Exception {
+        Class<?> cmds = loader.loadClass("p.Cmds");
+        Class<?> base = loader.loadClass("p.other.Base");
+        GeneratedContainer generated = GeneratedContainer.of(cmds);
+        assertEquals("cmds help", call(generated, null, "help", cmds));
+        assertEquals("base help", call(generated, null, "help", base));
+        assertEquals(6, call(generated, null, "sum", cmds, 1, new int[]{2, 3}));
+    }
+
+    @Test
+    void doesNotCallPrivateMethodsDirectly() throws Exception {
+        Class<?> cmds = loader.loadClass("p.Cmds");
+        GeneratedContainer generated = GeneratedContainer.of(cmds);
+        List<Method> methods = generated.getMethods();
+        for (int i = 0; i < methods.size(); i++) {
+            if (methods.get(i).getName().equals("secret"))
+                assertNull(generated.getCaller(i));
+        }
+    }
+
+    @Test
+    void generatesNestedContainers() throws Exception {
+        Class<?> nested = loader.loadClass("p.Cmds$Nested");
+        GeneratedContainer generated = GeneratedContainer.of(nested);
+        assertNotNull(generated);
+        assertEquals("p.Cmds_Nested" + GeneratedContainer.SUFFIX, generated.getClass().getName());
+        assertArrayEquals(new String[]{"number", "args"}, generated.getParameterNames(0));
+        Object instance = nested.getConstructor().newInstance();
+        assertEquals("nested 5 2", call(generated, instance, "run", nested, 5, new String[2]));
+    }
+}
@@ -44,7 +44,7 @@ final class SpongeCommandCallable implements CommandCallable {
     @Override public @NotNull List<String> getSuggestions(@NotNull CommandSource source, @NotNull String arguments, @Nullable Location<World> targetPosition) {
         try {
             CommandActor actor = new SpongeActor(source, handler);
-            ArgumentStack args = handler.parseArgumentsForCompletion(arguments);
+            ArgumentStack args = handler.parseArgumentsForCompletion(actor, arguments);
             return handler.getAutoCompleter().complete(actor, args);
         } catch (ArgumentParseException e) {
             return Collections.emptyList();
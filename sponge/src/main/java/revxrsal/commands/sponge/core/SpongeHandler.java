@@ -63,13 +63,13 @@ public class SpongeHandler extends BaseCommandHandler implements SpongeCommandHa
         setExceptionHandler(SpongeExceptionAdapter.INSTANCE);
     }
 
-    @Override public @NotNull CommandHandler register(@NotNull Object... commands) {
-        super.register(commands);
-        for (ExecutableCommand command : executables.values()) {
+    @Override public @NotNull CommandHandler freeze() {
+        super.freeze();
+        for (ExecutableCommand command : getCommands().values()) {
             if (command.getParent() != null) continue;
             createPluginCommand(command.getName());
         }
-        for (CommandCategory category : categories.values()) {
+        for (CommandCategory category : getCategories().values()) {
             if (category.getParent() != null) continue;
             createPluginCommand(category.getName());
         }
@@ -54,13 +54,13 @@ public final class VelocityHandler extends BaseCommandHandler implements Velocit
         setExceptionHandler(VelocityExceptionAdapter.INSTANCE);
     }
 
-    @Override public @NotNull CommandHandler register(@NotNull Object... commands) {
-        super.register(commands);
-        for (ExecutableCommand command : executables.values()) {
+    @Override public @NotNull CommandHandler freeze() {
+        super.freeze();
+        for (ExecutableCommand command : getCommands().values()) {
             if (command.getParent() != null) continue;
             createPluginCommand(command);
         }
-        for (CommandCategory category : categories.values()) {
+        for (CommandCategory category : getCategories().values()) {
             if (category.getParent() != null) continue;
             createPluginCommand(category);
         }
@@ -36,9 +36,9 @@ final class VelocitySimpleCommand implements SimpleCommand {
             VelocityCommandActor actor = new VelocityActor(invocation.source(), handler.getServer(), handler);
             ArgumentStack arguments;
             if (invocation.arguments().length == 0)
-                arguments = handler.parseArgumentsForCompletion("");
+                arguments = handler.parseArgumentsForCompletion(actor, "");
             else
-                arguments = handler.parseArgumentsForCompletion(invocation.arguments());
+                arguments = handler.parseArgumentsForCompletion(actor, invocation.arguments());
             arguments.addFirst(invocation.alias());
             return handler.getAutoCompleter().complete(actor, arguments);
         } catch (ArgumentParseException e) {
@@ -0,0 +1,54 @@
+package revxrsal.commands.virtual;
+
+import org.jetbrains.annotations.NotNull;
+import revxrsal.commands.CommandHandler;
+import revxrsal.commands.annotation.Async;
+import revxrsal.commands.command.CommandActor;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import static revxrsal.commands.util.Preconditions.notNull;
+
+/**
+ * Runs asynchronous commands on virtual threads.
+ * <p>
+ * Once enabled on a {@link CommandHandler}, every {@link Async} command, and every command
+ * dispatched with {@link CommandHandler#dispatchAsync(CommandActor, String)}, is resolved and
+ * invoked on its own virtual thread. As resolvers run as part of the invocation, resolvers
+ * that block (for example, by querying a database) only park their own virtual thread rather
+ * than occupying a thread of a fixed pool. Async commands that return a {@link CompletionStage}
+ * also have their results handled on a virtual thread.
+ * <p>
+ * This requires Java 21 or newer.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {}
+
+    /**
+     * Makes the given command handler run asynchronous commands on virtual threads
+     *
+     * @param handler The command handler
+     * @return The command handler
+     */
+    public static @NotNull CommandHandler enable(@NotNull CommandHandler handler) {
+        return enable(handler, "lamp-command-");
+    }
+
+    /**
+     * Makes the given command handler run asynchronous commands on virtual threads,
+     * whose names start with the given prefix.
+     *
+     * @param handler      The command handler
+     * @param threadPrefix The prefix of the thread names
+     * @return The command handler
+     */
+    public static @NotNull CommandHandler enable(@NotNull CommandHandler handler, @NotNull String threadPrefix) {
+        notNull(handler, "command handler");
+        notNull(threadPrefix, "thread prefix");
+        ThreadFactory factory = Thread.ofVirtual().name(threadPrefix, 0).factory();
+        return handler.setAsyncExecutor(Executors.newThreadPerTaskExecutor(factory));
+    }
+}